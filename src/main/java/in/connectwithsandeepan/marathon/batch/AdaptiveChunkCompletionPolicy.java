@@ -0,0 +1,125 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chunk size for the ingest step that follows the database. Each committed chunk is
+ * timed from its start to its commit, which is as long as its transaction holds locks.
+ * The measured throughput then sets the next chunk to the size that would commit in
+ * {@code target-commit-ms}, at most doubled or halved per chunk and kept between
+ * {@code min-size} and {@code max-size}. A busy database therefore gets smaller chunks
+ * and short transactions; an idle one gets larger chunks and fewer round trips.
+ * <p>
+ * Chunks that rolled back are not measured, as a rescan after a skip or retry says
+ * nothing about the database. The current size and the range of sizes used are kept in
+ * the step's {@link ExecutionContext}; a restarted step continues with the last size.
+ * Step scoped, so each partition adapts on its own.
+ */
+@Component
+@StepScope
+@Slf4j
+public class AdaptiveChunkCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener {
+
+    public static final String CHUNK_SIZE = "adaptiveChunk.size";
+    public static final String MIN_USED = "adaptiveChunk.minUsed";
+    public static final String MAX_USED = "adaptiveChunk.maxUsed";
+    public static final String ADJUSTMENTS = "adaptiveChunk.adjustments";
+    public static final String LAST_COMMIT_MS = "adaptiveChunk.lastCommitMs";
+
+    // weight of the newest chunk in the smoothed throughput
+    private static final double SMOOTHING = 0.5;
+
+    private final StepExecution stepExecution;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetCommitMs;
+
+    private double itemsPerMs;
+    private long chunkStartNanos;
+    private long itemsBeforeChunk;
+    private boolean afterError;
+
+    public AdaptiveChunkCompletionPolicy(
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("${batch.ingest.chunk.min-size:100}") int minSize,
+            @Value("${batch.ingest.chunk.max-size:5000}") int maxSize,
+            @Value("${batch.ingest.chunk.initial-size:1000}") int initialSize,
+            @Value("${batch.ingest.chunk.target-commit-ms:500}") long targetCommitMs) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Chunk size bounds must satisfy 1 <= min-size <= max-size");
+        }
+        this.stepExecution = stepExecution;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetCommitMs = Math.max(1, targetCommitMs);
+
+        ExecutionContext context = stepExecution.getExecutionContext();
+        setChunkSize(clamp(context.getInt(CHUNK_SIZE, initialSize)));
+        if (!context.containsKey(MIN_USED)) {
+            context.putInt(MIN_USED, getChunkSize());
+            context.putInt(MAX_USED, getChunkSize());
+            context.putInt(ADJUSTMENTS, 0);
+        }
+        context.putInt(CHUNK_SIZE, getChunkSize());
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStartNanos = System.nanoTime();
+        itemsBeforeChunk = itemsHandled();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long items = itemsHandled() - itemsBeforeChunk;
+        if (afterError || items <= 0) {
+            afterError = false;
+            return;
+        }
+        double elapsedMs = Math.max(1.0, (System.nanoTime() - chunkStartNanos) / 1_000_000.0);
+
+        double measured = items / elapsedMs;
+        itemsPerMs = itemsPerMs == 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * itemsPerMs;
+
+        int current = getChunkSize();
+        int next = (int) Math.round(itemsPerMs * targetCommitMs);
+        next = clamp(Math.max(current / 2, Math.min(current * 2, next)));
+
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putLong(LAST_COMMIT_MS, Math.round(elapsedMs));
+        if (next != current) {
+            setChunkSize(next);
+            executionContext.putInt(CHUNK_SIZE, next);
+            executionContext.putInt(MIN_USED, Math.min(next, executionContext.getInt(MIN_USED)));
+            executionContext.putInt(MAX_USED, Math.max(next, executionContext.getInt(MAX_USED)));
+            executionContext.putInt(ADJUSTMENTS, executionContext.getInt(ADJUSTMENTS) + 1);
+            log.debug("{}: {} items committed in {} ms, chunk size {} -> {}",
+                    stepExecution.getStepName(), items, Math.round(elapsedMs), current, next);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        // the chunk is rescanned item by item next, which is not worth measuring
+        afterError = true;
+    }
+
+    /**
+     * Items read in this step so far, including rows that failed to read.
+     */
+    private long itemsHandled() {
+        return stepExecution.getReadCount() + stepExecution.getReadSkipCount();
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+}
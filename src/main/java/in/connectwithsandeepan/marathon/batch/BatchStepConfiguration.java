@@ -2,47 +2,237 @@ package in.connectwithsandeepan.marathon.batch;
 
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
 import in.connectwithsandeepan.marathon.entity.Result;
+import in.connectwithsandeepan.marathon.exception.DuplicateBibException;
 import in.connectwithsandeepan.marathon.exception.ProcessorInitializationException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.*;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchTransactionManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
-@RequiredArgsConstructor
 @Slf4j
 public class BatchStepConfiguration {
 
+    /**
+     * Rows an ingest step may skip before it fails.
+     */
+    public static final int SKIP_LIMIT = 100;
+
     private final JobRepository jobRepository;
+    private final PlatformTransactionManager batchTransactionManager;
     private final PlatformTransactionManager transactionManager;
+    private final JobProgressBroadcaster progressBroadcaster;
+
+    /**
+     * Steps commit on the batch pool's transaction manager (see
+     * {@link in.connectwithsandeepan.marathon.config.DataSourceConfig}), except the
+     * ingest step of the JPA writer, whose writes go through the primary pool.
+     */
+    public BatchStepConfiguration(
+            JobRepository jobRepository,
+            @BatchTransactionManager PlatformTransactionManager batchTransactionManager,
+            PlatformTransactionManager transactionManager,
+            JobProgressBroadcaster progressBroadcaster) {
+        this.jobRepository = jobRepository;
+        this.batchTransactionManager = batchTransactionManager;
+        this.transactionManager = transactionManager;
+        this.progressBroadcaster = progressBroadcaster;
+    }
 
     @Bean
     public Step processResultsStep(
             ResultItemReader reader,
             ResultItemProcessor processor,
-            ResultItemWriter writer) {
+            ResultItemWriter jpaWriter,
+            ResultJdbcBatchWriter jdbcWriter,
+            AdaptiveChunkCompletionPolicy chunkPolicy,
+            @Value("${batch.ingest.writer:JDBC}") IngestWriterMode writerMode) {
 
-        return new StepBuilder("processResultsStep", jobRepository)
-                .<ResultRequestDTO, Result>chunk(1000, transactionManager) // Process 1000 records per chunk
+        SimpleStepBuilder<ResultRequestDTO, Result> builder = new StepBuilder("processResultsStep", jobRepository)
+                .<ResultRequestDTO, Result>chunk(chunkPolicy, ingestTransactionManager(writerMode)) // Chunk size follows commit latency
                 .reader(reader)
                 .processor(processor)
-                .writer(writer)
-                .faultTolerant()                    // Enable fault tolerance
-                .skipLimit(100)                     // Skip up to 100 bad records
-                .skip(ProcessorInitializationException.class)       // Skip on validation/processing errors
-                .skip(DataIntegrityViolationException.class) // Skip on duplicate key errors
-                .retryLimit(3)                      // Retry failed operations 3 times
-                .retry(TransientDataAccessException.class)   // Retry on transient DB errors
-                .listener(stepExecutionListener())  // Add step listener for monitoring
+                .writer(resultWriter(jpaWriter, jdbcWriter, writerMode))
+                .listener((ChunkListener) chunkPolicy);
+        return withIngestFaultTolerance(new ChunkPreparingStepBuilder<>(builder, processor, // Process each chunk in one pass
+                        bisectWriteFailures(writerMode)))
+                .build();
+    }
+
+    /**
+     * Partitioned variant of {@link #processResultsStep}: the sheet is split into row
+     * ranges and each range runs through its own copy of the chunk step on the ingest
+     * thread pool. All partitions belong to the same {@link JobExecution}.
+     */
+    @Bean
+    public Step partitionedProcessResultsStep(
+            Step processResultsStep,
+            ResultRowRangePartitioner partitioner,
+            ThreadPoolTaskExecutor ingestTaskExecutor) {
+
+        return new StepBuilder("partitionedProcessResultsStep", jobRepository)
+                .partitioner(processResultsStep.getName(), partitioner)
+                .step(processResultsStep)
+                .gridSize(ingestTaskExecutor.getMaxPoolSize())
+                .taskExecutor(ingestTaskExecutor)
+                .listener(stepExecutionListener())
                 .build();
     }
 
+    /**
+     * Pipelined variant of {@link #processResultsStep}: a read-ahead thread parses rows
+     * into a bounded queue, each row is validated and converted on the processor
+     * executor, one at a time rather than a chunk at once, and the writer collects the
+     * futures of a chunk before writing it.
+     * Processing errors therefore surface in the writer; the step then rescans the chunk
+     * item by item, so the same exceptions are skipped or retried as in the simple step.
+     * Constraint violations are isolated by halving the chunk, as in the simple step.
+     * The step has a name of its own: its read-ahead reader hands rows over differently,
+     * so a restart after the step mode changed must not resume the simple step's
+     * execution, nor the other way round.
+     */
+    @Bean
+    public Step pipelinedProcessResultsStep(
+            ReadAheadItemReader<ResultRequestDTO> readAheadResultReader,
+            ResultItemProcessor processor,
+            ResultItemWriter jpaWriter,
+            ResultJdbcBatchWriter jdbcWriter,
+            AdaptiveChunkCompletionPolicy chunkPolicy,
+            @Value("${batch.ingest.writer:JDBC}") IngestWriterMode writerMode,
+            TaskExecutor ingestProcessorExecutor) throws Exception {
+
+        AsyncItemProcessor<ResultRequestDTO, Result> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(processor);
+        asyncProcessor.setTaskExecutor(ingestProcessorExecutor);
+        asyncProcessor.afterPropertiesSet();
+
+        AsyncItemWriter<Result> asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(resultWriter(jpaWriter, jdbcWriter, writerMode));
+        asyncWriter.afterPropertiesSet();
+
+        SimpleStepBuilder<ResultRequestDTO, Future<Result>> builder = new StepBuilder("pipelinedProcessResultsStep", jobRepository)
+                .<ResultRequestDTO, Future<Result>>chunk(chunkPolicy, ingestTransactionManager(writerMode))
+                .reader(readAheadResultReader)
+                .processor(asyncProcessor)
+                .writer(asyncWriter)
+                .listener((ChunkListener) chunkPolicy);
+        return withIngestFaultTolerance(new BisectingStepBuilder<>(builder, bisectWriteFailures(writerMode)))
+                .build();
+    }
+
+    /**
+     * Read-ahead buffer for the pipelined step. Holds at most {@code read-ahead} parsed
+     * rows; the parsing thread waits when it is full.
+     */
+    @Bean
+    @StepScope
+    public ReadAheadItemReader<ResultRequestDTO> readAheadResultReader(
+            ResultItemReader reader,
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("${batch.ingest.pipeline.read-ahead:2000}") int capacity) {
+        return new ReadAheadItemReader<>(reader, stepExecution, ResultItemReader.ROWS_CONSUMED, capacity);
+    }
+
+    /**
+     * Runs {@link ResultItemProcessor} for the pipelined step. Uses virtual threads when
+     * the JVM supports them, otherwise a fixed pool. Either way at most {@code threads}
+     * items are processed at once and the step thread waits (or runs the item itself)
+     * when that limit is reached.
+     */
+    @Bean
+    public TaskExecutor ingestProcessorExecutor(
+            @Value("${batch.ingest.pipeline.processor-threads:0}") int processorThreads) {
+
+        int threads = processorThreads > 0 ? processorThreads : Runtime.getRuntime().availableProcessors();
+        if (Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ingest-process-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads);
+            log.info("Ingest processor executor: virtual threads, at most {} at once", threads);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("ingest-process-");
+        executor.initialize();
+        log.info("Ingest processor executor: pool of {} threads", threads);
+        return executor;
+    }
+
+    /**
+     * Runs before the ingest step; clears the event's results for a replace upload.
+     */
+    @Bean
+    public Step purgeResultsStep(PurgeResultsTasklet purgeResultsTasklet) {
+        return new StepBuilder("purgeResultsStep", jobRepository)
+                .tasklet(purgeResultsTasklet, batchTransactionManager)
+                .build();
+    }
+
+    /**
+     * Runs after the ingest step; removes results a delta upload no longer contains.
+     */
+    @Bean
+    public Step deleteStaleResultsStep(DeleteStaleResultsTasklet deleteStaleResultsTasklet) {
+        return new StepBuilder("deleteStaleResultsStep", jobRepository)
+                .tasklet(deleteStaleResultsTasklet, batchTransactionManager)
+                .build();
+    }
+
+    /**
+     * Runs last; moves the rows of a staged upload into the live tables.
+     */
+    @Bean
+    public Step swapStagedResultsStep(SwapStagedResultsTasklet swapStagedResultsTasklet) {
+        return new StepBuilder("swapStagedResultsStep", jobRepository)
+                .tasklet(swapStagedResultsTasklet, batchTransactionManager)
+                .build();
+    }
+
+    /**
+     * Worker pool for partitioned ingestion. Each worker holds a DB connection while it
+     * commits, so the pool is capped below the batch pool size to leave connections
+     * for id allocation and the job repository.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestTaskExecutor(
+            @Value("${batch.ingest.partition.grid-size:4}") int gridSize,
+            @Value("${batch.datasource.hikari.maximum-pool-size:10}") int dbPoolSize) {
+
+        int threads = Math.max(1, Math.min(gridSize, dbPoolSize - 2));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        log.info("Ingest partition pool size: {} (requested {}, DB pool {})", threads, gridSize, dbPoolSize);
+        return executor;
+    }
+
     @Bean
     public StepExecutionListener stepExecutionListener() {
         return new StepExecutionListener() {
@@ -79,4 +269,47 @@ public class BatchStepConfiguration {
             }
         };
     }
+
+    private ItemWriter<Result> resultWriter(
+            ResultItemWriter jpaWriter, ResultJdbcBatchWriter jdbcWriter, IngestWriterMode writerMode) {
+        log.info("Result ingest writes with the {} writer", writerMode);
+        return switch (writerMode) {
+            case JDBC -> jdbcWriter;
+            case JPA -> jpaWriter;
+        };
+    }
+
+    /**
+     * The JPA writer saves through the primary pool's persistence context, which cannot
+     * join a transaction of the batch pool, so its chunks commit on the JPA transaction
+     * manager and compete with API requests for connections.
+     */
+    private PlatformTransactionManager ingestTransactionManager(IngestWriterMode writerMode) {
+        return writerMode == IngestWriterMode.JPA ? transactionManager : batchTransactionManager;
+    }
+
+    /**
+     * Whether a chunk failing with a constraint violation is halved until the failing rows
+     * are found (see {@link BisectingItemWriter}) rather than rewritten row by row. Needs
+     * savepoints in the chunk transaction, so only the JDBC writer does; rolling back to a
+     * savepoint would not undo what the JPA writer put in its persistence context.
+     */
+    private boolean bisectWriteFailures(IngestWriterMode writerMode) {
+        return writerMode == IngestWriterMode.JDBC;
+    }
+
+    /**
+     * Skip and retry rules and listeners shared by the ingest steps.
+     */
+    private <I, O> SimpleStepBuilder<I, O> withIngestFaultTolerance(FaultTolerantStepBuilder<I, O> builder) {
+        return builder
+                .skipLimit(SKIP_LIMIT)              // Skip up to 100 bad records
+                .skip(ProcessorInitializationException.class)       // Skip on validation/processing errors
+                .skip(DuplicateBibException.class)  // Skip bibs already stored or used earlier in the file
+                .skip(DataIntegrityViolationException.class) // Skip on duplicate key errors
+                .retryLimit(3)                      // Retry failed operations 3 times
+                .retry(TransientDataAccessException.class)   // Retry on transient DB errors
+                .listener(stepExecutionListener())  // Add step listener for monitoring
+                .listener((ChunkListener) progressBroadcaster); // Push progress after each commit
+    }
 }
@@ -2,9 +2,12 @@ package in.connectwithsandeepan.marathon.batch;
 
 import in.connectwithsandeepan.marathon.dto.ExcelFileUploadResponseDto;
 import in.connectwithsandeepan.marathon.dto.ExcelProcessStartResponseDto;
+import in.connectwithsandeepan.marathon.dto.ResultFileValidationReportDto;
 import in.connectwithsandeepan.marathon.exception.ErrorResponse;
 import in.connectwithsandeepan.marathon.exception.ExcelProcessException;
 import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
+import in.connectwithsandeepan.marathon.exception.IngestQueueFullException;
+import in.connectwithsandeepan.marathon.repo.EventRepository;
 import in.connectwithsandeepan.marathon.repo.ResultRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,27 +19,38 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
-@Tag(name = "Batch Result Upload", description = "API endpoints for bulk uploading marathon results from Excel files")
+@Tag(name = "Batch Result Upload", description = "API endpoints for bulk uploading marathon results from Excel or CSV files")
 @RestController
 @RequestMapping("/api/v1/events/{eventId}/results/batch")
 @RequiredArgsConstructor
@@ -49,13 +63,30 @@ public class BatchUploadController {
             F001,Jane Smith,F,Half Marathon,18-35,2,1,1,01:22:45,01:23:10,00:27:15,00:55:30
             """;
     public static final String EVENT = "event_";
+    private static final List<String> SUPPORTED_EXTENSIONS = List.of(".xlsx", ".xls", ".csv", ".csv.gz", ".zip");
     private final ResultUploadJobService jobService;
     private final ResultRepository resultRepository;
+    private final EventRepository eventRepository;
     private final JobExplorer jobExplorer;
+    private final IngestStreamRegistry ingestStreamRegistry;
+    private final IngestJobScheduler jobScheduler;
+    private final JobProgressBroadcaster progressBroadcaster;
+    private final ResultFileValidator resultFileValidator;
+
+    @Value("${batch.ingest.stream.max-size:10MB}")
+    private DataSize maxStreamSize;
+
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxUploadSize;
+
+    @Value("${batch.ingest.writer:JDBC}")
+    private IngestWriterMode writerMode;
 
     @Operation(
-            summary = "Upload Excel file for batch processing",
-            description = "Uploads and validates Excel file for later batch processing. File is saved in event-specific folder."
+            summary = "Upload Excel or CSV file for batch processing",
+            description = "Uploads and validates an .xlsx, .xls or .csv file for later batch processing. File is saved in event-specific folder. " +
+                    "A compressed upload, a gzipped CSV (.csv.gz) or a .zip holding one .xlsx, .xls or .csv file, is " +
+                    "stored as it is and inflated while the job reads it, up to batch.ingest.upload.max-inflated-size."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -81,7 +112,7 @@ public class BatchUploadController {
             @Parameter(description = "Event ID", required = true)
             @PathVariable Long eventId,
 
-            @Parameter(description = "Excel file containing results", required = true)
+            @Parameter(description = "Excel or CSV file containing results, optionally compressed (.csv.gz or .zip)", required = true)
             @RequestParam("file") MultipartFile file) throws IOException {
 
         log.info("File upload request for event {}: {}", eventId, file.getOriginalFilename());
@@ -95,7 +126,7 @@ public class BatchUploadController {
 
 
         if (existingResultsCount > 0) {
-            uploadResponse.setWarning("Event has " + existingResultsCount + " existing results. They will be deleted when job starts.");
+            uploadResponse.setWarning("Event has " + existingResultsCount + " existing results. They will be deleted when job starts in REPLACE mode, and replaced when it completes in STAGED mode.");
         }
 
         log.info("File uploaded successfully for event {}: {}", eventId, filePath);
@@ -104,12 +135,19 @@ public class BatchUploadController {
 
     @Operation(
             summary = "Start batch processing job",
-            description = "Starts the batch processing job for the uploaded file. Deletes existing results if any."
+            description = "Starts the batch processing job for the uploaded file. In REPLACE mode (default) existing " +
+                    "results are deleted first. In DELTA mode the file is compared with the stored results by bib and " +
+                    "only new, changed and removed rows are written; the status endpoint reports the counts. In STAGED " +
+                    "mode the file is loaded aside and replaces the existing results in one transaction once the job " +
+                    "completes, so readers never see a partial list and a failed job changes nothing. If the file is " +
+                    "identical (same SHA-256) to the file of the last completed upload job and no result was added or " +
+                    "deleted since, no job is started and the response status is UNCHANGED; force=true runs it anyway."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Job started successfully"),
-            @ApiResponse(responseCode = "400", description = "No file uploaded or job start failed"),
+            @ApiResponse(responseCode = "200", description = "Job started successfully, or file unchanged"),
+            @ApiResponse(responseCode = "400", description = "No file uploaded, STAGED without the JDBC writer, or job start failed"),
             @ApiResponse(responseCode = "404", description = "Event or file not found"),
+            @ApiResponse(responseCode = "503", description = "Too many jobs waiting"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping(
@@ -118,8 +156,16 @@ public class BatchUploadController {
     )
     public ResponseEntity<ExcelProcessStartResponseDto> startJob(
             @Parameter(description = "Event ID", required = true)
-            @PathVariable Long eventId) {
+            @PathVariable Long eventId,
 
+            @Parameter(description = "REPLACE deletes and reloads all results, DELTA applies only the changes, " +
+                    "STAGED reloads all results and swaps them in when the job completes")
+            @RequestParam(defaultValue = "REPLACE") IngestMode mode,
+
+            @Parameter(description = "Run the job even if the file was already ingested")
+            @RequestParam(defaultValue = "false") boolean force) {
+
+        checkWriterSupports(mode);
         try {
             log.info("Job start request for event {}", eventId);
 
@@ -128,28 +174,207 @@ public class BatchUploadController {
                 throw new FileNotFoundException("No file found for event " + eventId);
             }
 
-            long deletedCount = deleteExistingResults(eventId);
+            String fileSha256 = UploadedFileHash.readFor(Paths.get(filePath));
+            if (!force && isLastIngestedFile(eventId, fileSha256)) {
+                ExcelProcessStartResponseDto unchangedResponse = new ExcelProcessStartResponseDto();
+                unchangedResponse.setMessage("No changes: the file is identical to the last ingested upload, no job started");
+                unchangedResponse.setStatus("UNCHANGED");
+                unchangedResponse.setDeletedResultsCount("0");
+
+                log.info("Skipping job start for event {}, file {} was already ingested", eventId, fileSha256);
+                return ResponseEntity.ok(unchangedResponse);
+            }
 
-            JobExecution execution = jobService.startResultUpload(eventId, filePath);
+            long deletedCount = countResultsToDelete(eventId, mode);
+
+            JobExecution execution = jobService.startResultUpload(eventId, filePath, mode, fileSha256);
 
             ExcelProcessStartResponseDto processStartResponse = new ExcelProcessStartResponseDto();
             processStartResponse.setMessage("Job started successfully");
             processStartResponse.setStatus(execution.getStatus().name());
             processStartResponse.setDeletedResultsCount(String.valueOf(deletedCount));
+            processStartResponse.setJobId(execution.getId());
 
-
-            log.info("Job started for event {} with job ID {} (deleted {} existing results)",
+            log.info("Job started for event {} with job ID {} (deleting {} existing results)",
                     eventId, execution.getId(), deletedCount);
             return ResponseEntity.ok(processStartResponse);
+        } catch (IngestQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Job start failed for event {}: {}", eventId, e.getMessage(), e);
             throw new ExcelProcessException(e.getMessage());
         }
     }
 
+    @Operation(
+            summary = "Check the uploaded file without ingesting it",
+            description = "Runs the ingest job's row validation over the uploaded file and returns every row the job " +
+                    "would reject, and whether the job would fail. Nothing is written and existing results are kept, " +
+                    "so a file can be corrected before the job is started."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File checked",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ResultFileValidationReportDto.class))),
+            @ApiResponse(responseCode = "400", description = "File could not be read or event not found"),
+            @ApiResponse(responseCode = "404", description = "No file uploaded"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(
+            value = "/validate",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ResultFileValidationReportDto> validateUploadedFile(
+            @Parameter(description = "Event ID", required = true)
+            @PathVariable Long eventId) throws FileNotFoundException {
+
+        log.info("Validation request for event {}", eventId);
+
+        String filePath = getEventFilePath(eventId);
+        if (!Files.exists(Paths.get(filePath))) {
+            throw new FileNotFoundException("No file found for event " + eventId);
+        }
+
+        try {
+            return ResponseEntity.ok(resultFileValidator.validate(eventId, filePath));
+        } catch (Exception e) {
+            log.error("Validation failed for event {}: {}", eventId, e.getMessage(), e);
+            throw new ExcelProcessException(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Upload and ingest a CSV file in one request",
+            description = "Streams the CSV request body straight into the ingest job, so rows are validated and " +
+                    "written while the upload is still arriving. Deletes existing results first in REPLACE mode. The body is kept " +
+                    "on disk only as an audit copy. Returns once the whole body has been received; use the status " +
+                    "endpoint with the returned job ID to follow the rest of the ingest."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload received and job running"),
+            @ApiResponse(responseCode = "400", description = "Upload too large, interrupted, STAGED without the JDBC writer, or job start failed"),
+            @ApiResponse(responseCode = "503", description = "No worker free to start the ingest at once"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(
+            value = "/stream",
+            consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ExcelProcessStartResponseDto> streamUpload(
+            @Parameter(description = "Event ID", required = true)
+            @PathVariable Long eventId,
+
+            @Parameter(description = "REPLACE deletes and reloads all results, DELTA applies only the changes, " +
+                    "STAGED reloads all results and swaps them in when the job completes")
+            @RequestParam(defaultValue = "REPLACE") IngestMode mode,
+            HttpServletRequest request) throws IOException {
+
+        log.info("Streaming upload request for event {}", eventId);
+        checkWriterSupports(mode);
+
+        Path auditCopy = Paths.get(getStreamFilePath(eventId));
+        Path partial = IngestStream.partialCopyOf(auditCopy);
+        Files.createDirectories(auditCopy.getParent());
+        UploadedFileHash.deleteFor(auditCopy);
+
+        long deletedCount = countResultsToDelete(eventId, mode);
+
+        IngestStream stream = ingestStreamRegistry.create();
+        JobExecution execution;
+        try {
+            execution = jobService.startStreamingUpload(eventId, auditCopy.toString(), stream.getId(), mode);
+        } catch (RuntimeException e) {
+            ingestStreamRegistry.release(stream.getId());
+            throw e instanceof IngestQueueFullException ? e : new ExcelProcessException(e.getMessage());
+        }
+
+        UploadedFileHash hash = new UploadedFileHash();
+        long bytes;
+        try {
+            bytes = stream.transferFrom(hash.digesting(request.getInputStream()), partial, maxStreamSize.toBytes());
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            log.error("Streaming upload for event {} failed after job {} started: {}", eventId, execution.getId(), e.getMessage());
+            throw new ExcelProcessException("Upload interrupted: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        // Keep the audit copy where /start looks for the event's file
+        for (String other : SUPPORTED_EXTENSIONS) {
+            if (!".csv".equals(other)) {
+                Path stale = auditCopy.resolveSibling(EVENT + eventId + "_results" + other);
+                Files.deleteIfExists(stale);
+                UploadedFileHash.deleteFor(stale);
+            }
+        }
+        Files.move(partial, auditCopy, StandardCopyOption.REPLACE_EXISTING);
+        hash.saveFor(auditCopy);
+
+        JobExecution current = jobExplorer.getJobExecution(execution.getId());
+        ExcelProcessStartResponseDto processStartResponse = new ExcelProcessStartResponseDto();
+        processStartResponse.setMessage("Upload received (" + bytes + " bytes), ingest running");
+        processStartResponse.setStatus((current != null ? current : execution).getStatus().name());
+        processStartResponse.setDeletedResultsCount(String.valueOf(deletedCount));
+        processStartResponse.setJobId(execution.getId());
+
+        log.info("Streaming upload for event {} received {} bytes into job {} (deleting {} existing results)",
+                eventId, bytes, execution.getId(), deletedCount);
+        return ResponseEntity.ok(processStartResponse);
+    }
+
+    @Operation(
+            summary = "Restart a failed job",
+            description = "Restarts a failed or stopped job with its original parameters. Steps that completed are " +
+                    "skipped and the ingest resumes after the last committed chunk, so results already written by " +
+                    "the failed run are neither deleted nor written again. A streamed upload is re-read from its audit copy."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job restarted"),
+            @ApiResponse(responseCode = "400", description = "Job is not restartable or restart failed"),
+            @ApiResponse(responseCode = "404", description = "Job not found for this event"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(
+            value = "/restart/{jobId}",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ExcelProcessStartResponseDto> restartJob(
+            @Parameter(description = "Event ID", required = true)
+            @PathVariable Long eventId,
+
+            @Parameter(description = "ID of the failed job", required = true)
+            @PathVariable Long jobId) {
+
+        JobExecution failed = jobExplorer.getJobExecution(jobId);
+        if (failed == null || !eventId.equals(failed.getJobParameters().getLong("eventId"))) {
+            return ResponseEntity.notFound().build();
+        }
+        if (failed.getStatus() != BatchStatus.FAILED && failed.getStatus() != BatchStatus.STOPPED) {
+            throw new ExcelProcessException("Job " + jobId + " is " + failed.getStatus() + ", only failed or stopped jobs can be restarted");
+        }
+        checkWriterSupports(IngestMode.fromParameter(failed.getJobParameters().getString("mode")));
+        checkFileUnchanged(failed);
+
+        JobExecution execution = jobService.restart(failed);
+
+        ExcelProcessStartResponseDto processStartResponse = new ExcelProcessStartResponseDto();
+        processStartResponse.setMessage("Job restarted from job " + jobId);
+        processStartResponse.setStatus(execution.getStatus().name());
+        processStartResponse.setDeletedResultsCount("0");
+        processStartResponse.setJobId(execution.getId());
+
+        log.info("Job {} for event {} restarted as job {}", jobId, eventId, execution.getId());
+        return ResponseEntity.ok(processStartResponse);
+    }
+
     @Operation(
             summary = "Get job status and progress",
-            description = "Returns current status and progress of the batch processing job"
+            description = "Returns current status and progress of the batch processing job. A job waiting for a " +
+                    "free worker reports its queue position; every job reports how long it waited (queueWaitMs)."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Status retrieved successfully"),
@@ -179,15 +404,42 @@ public class BatchUploadController {
             response.put("eventId", eventId);
             response.put("status", jobExecution.getStatus().name());
 
-            StepExecution step = jobExecution.getStepExecutions().stream().findFirst().orElse(null);
-            if (step != null) {
-                response.put("recordsRead", step.getReadCount());
-                response.put("recordsWritten", step.getWriteCount());
-                response.put("recordsSkipped", step.getSkipCount());
+            Optional<IngestJobScheduler.QueueStatus> queued = jobScheduler.queueStatus(jobId);
+            queued.ifPresent(queue -> {
+                response.put("queuePosition", queue.position());
+                response.put("queueWaitMs", queue.waitingMs());
+            });
+            if (queued.isEmpty() && jobExecution.getExecutionContext().containsKey(IngestJobScheduler.QUEUE_WAIT_MS)) {
+                response.put("queueWaitMs", jobExecution.getExecutionContext().getLong(IngestJobScheduler.QUEUE_WAIT_MS));
+            }
+
+            List<StepExecution> steps = JobProgress.ingestSteps(jobExecution);
+            if (!steps.isEmpty()) {
+                long readCount = steps.stream().mapToLong(StepExecution::getReadCount).sum();
+                long writeCount = steps.stream().mapToLong(StepExecution::getWriteCount).sum();
+                long skipCount = steps.stream().mapToLong(StepExecution::getSkipCount).sum();
+
+                response.put("recordsRead", readCount);
+                response.put("recordsWritten", writeCount);
+                response.put("recordsSkipped", skipCount);
+                if (steps.size() > 1) {
+                    response.put("partitions", steps.size());
+                }
+                if (IngestMode.fromParameter(jobExecution.getJobParameters().getString("mode")) == IngestMode.DELTA) {
+                    long inserted = IngestCounts.sum(steps, IngestCounts.INSERTED);
+                    long updated = IngestCounts.sum(steps, IngestCounts.UPDATED);
+                    // rows read that were neither written nor skipped; the pipelined step drops
+                    // them in its writer, so the filter count alone does not cover them
+                    long rejected = steps.stream().mapToLong(step -> step.getProcessSkipCount() + step.getWriteSkipCount()).sum();
+                    response.put("inserted", inserted);
+                    response.put("updated", updated);
+                    response.put("unchanged", Math.max(0, readCount - rejected - inserted - updated));
+                    response.put("deleted", IngestCounts.sum(jobExecution.getStepExecutions(), IngestCounts.DELETED));
+                }
 
-                if (step.getReadCount() > 0) {
-                    long totalProcessed = step.getWriteCount() + step.getSkipCount();
-                    double progress = (double) totalProcessed / step.getReadCount() * 100.0;
+                if (readCount > 0) {
+                    long totalProcessed = writeCount + skipCount + steps.stream().mapToLong(StepExecution::getFilterCount).sum();
+                    double progress = (double) totalProcessed / readCount * 100.0;
                     response.put("progressPercentage", Math.round(progress));
                 } else {
                     response.put("progressPercentage", 0);
@@ -195,6 +447,7 @@ public class BatchUploadController {
             }
 
             String message = switch (jobExecution.getStatus()) {
+                case STARTING -> queued.isPresent() ? "Job is queued behind other uploads" : "Job is starting...";
                 case STARTED -> "Job is running...";
                 case COMPLETED -> "Job completed successfully";
                 case FAILED -> "Job failed";
@@ -215,19 +468,51 @@ public class BatchUploadController {
     }
 
     @Operation(
-            summary = "Download Excel template",
-            description = "Downloads a template Excel file with the correct format for bulk result upload"
+            summary = "Follow job progress",
+            description = "Server-Sent Events stream of 'progress' events with the read, written and skipped counts " +
+                    "of a running job, at most one per update interval and only when something changed. A queued job " +
+                    "reports its queue position. The stream ends after the job's final event; a job that has already " +
+                    "finished gets one event. Clients should close their EventSource once the status is final."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "404", description = "Job not found for this event")
+    })
+    @GetMapping(
+            value = "/status/{jobId}/events",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    public ResponseEntity<SseEmitter> streamJobStatus(
+            @PathVariable Long eventId,
+            @PathVariable Long jobId) {
+
+        if (progressBroadcaster.isTracked(jobId, eventId)) {
+            return ResponseEntity.ok(progressBroadcaster.subscribe(jobId));
+        }
+
+        // not running here, so whatever the repository holds is final
+        JobExecution jobExecution = jobExplorer.getJobExecution(jobId);
+        if (jobExecution == null || !eventId.equals(jobExecution.getJobParameters().getLong("eventId"))) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(progressBroadcaster.snapshot(JobProgress.of(jobExecution)));
+    }
+
+    @Operation(
+            summary = "Download CSV template",
+            description = "Downloads a template CSV file with the correct column layout for bulk result upload. " +
+                    "The same columns are used for .xlsx and .xls uploads."
     )
     @GetMapping(
             value = "/template",
-            produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+            produces = "text/csv"
     )
     public ResponseEntity<byte[]> downloadTemplate() {
         try {
             String template = createExcelTemplate();
             return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=results-template.xlsx")
-                    .body(template.getBytes());
+                    .header("Content-Disposition", "attachment; filename=results-template.csv")
+                    .body(template.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             log.error("Error generating template: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -240,14 +525,14 @@ public class BatchUploadController {
         }
 
         String filename = file.getOriginalFilename();
-        if (filename == null ||
-                (!filename.toLowerCase().endsWith(".xlsx") && !filename.toLowerCase().endsWith(".xls"))) {
-            throw new IllegalArgumentException("Only .xlsx and .xls files are supported");
+        if (filename == null || SUPPORTED_EXTENSIONS.stream().noneMatch(filename.toLowerCase()::endsWith)) {
+            throw new IllegalArgumentException("Only .xlsx, .xls, .csv, .csv.gz and .zip files are supported");
         }
 
-        long maxSize = 10L * 1024L * 1024L;
-        if (file.getSize() > maxSize) {
-            throw new IllegalArgumentException("File size exceeds maximum limit of 10MB");
+        // compressed uploads count with their compressed size; their inflated size is
+        // limited when they are read
+        if (file.getSize() > maxUploadSize.toBytes()) {
+            throw new IllegalArgumentException("File size exceeds maximum limit of " + maxUploadSize);
         }
     }
 
@@ -258,55 +543,112 @@ public class BatchUploadController {
             log.info("Created directory: {}", eventDir.toAbsolutePath());
         }
 
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        String originalFilename = file.getOriginalFilename().toLowerCase();
+        String extension = SUPPORTED_EXTENSIONS.stream()
+                .filter(originalFilename::endsWith)
+                .findFirst()
+                .orElseThrow();
 
         String filename = EVENT + eventId + "_results" + extension;
         Path filePath = eventDir.resolve(filename);
 
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        // Drop an upload of a different type so /start cannot pick up a stale file
+        for (String other : SUPPORTED_EXTENSIONS) {
+            if (!other.equalsIgnoreCase(extension)) {
+                Path stale = eventDir.resolve(EVENT + eventId + "_results" + other);
+                Files.deleteIfExists(stale);
+                UploadedFileHash.deleteFor(stale);
+            }
+        }
 
-        log.info("File saved: {} for event: {} (replaced if existed)", filePath.toAbsolutePath(), eventId);
+        // Hash while copying, so /start can tell an identical upload without reading it again
+        UploadedFileHash.deleteFor(filePath);
+        UploadedFileHash hash = new UploadedFileHash();
+        try (InputStream body = hash.digesting(file.getInputStream())) {
+            Files.copy(body, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        String sha256 = hash.saveFor(filePath);
+
+        log.info("File saved: {} for event: {} (replaced if existed, SHA-256 {})", filePath.toAbsolutePath(), eventId, sha256);
         return filePath.toAbsolutePath().toString();
     }
 
     private String getEventFilePath(Long eventId) {
         Path eventDir = Paths.get("uploads", EVENT + eventId);
 
-        Path xlsxPath = eventDir.resolve(EVENT + eventId + "_results.xlsx");
-        if (Files.exists(xlsxPath)) {
-            return xlsxPath.toAbsolutePath().toString();
-        }
-
-        Path xlsPath = eventDir.resolve(EVENT + eventId + "_results.xls");
-        if (Files.exists(xlsPath)) {
-            return xlsPath.toAbsolutePath().toString();
+        for (String extension : SUPPORTED_EXTENSIONS) {
+            Path path = eventDir.resolve(EVENT + eventId + "_results" + extension);
+            if (Files.exists(path)) {
+                return path.toAbsolutePath().toString();
+            }
         }
 
-        return xlsxPath.toAbsolutePath().toString();
+        return eventDir.resolve(EVENT + eventId + "_results.xlsx").toAbsolutePath().toString();
     }
 
-    private long deleteExistingResults(Long eventId) {
-        try {
-            log.info("Deleting existing results for event {}", eventId);
+    private String getStreamFilePath(Long eventId) {
+        return Paths.get("uploads", EVENT + eventId, EVENT + eventId + "_results.csv").toAbsolutePath().toString();
+    }
 
-            long existingCount = resultRepository.countByEventId(eventId);
+    /**
+     * Staged rows are written with JDBC on the batch pool, which the JPA writer's
+     * transaction does not cover; such a job would fail on its first chunk, after the
+     * purge step already abandoned the event's other staged runs.
+     */
+    private void checkWriterSupports(IngestMode mode) {
+        if (mode == IngestMode.STAGED && writerMode != IngestWriterMode.JDBC) {
+            throw new ExcelProcessException("STAGED uploads need batch.ingest.writer=JDBC, this server uses " + writerMode);
+        }
+    }
 
-            if (existingCount > 0) {
-                resultRepository.deleteCheckpointsByEventId(eventId);
-                resultRepository.deleteByEventId(eventId);
-                log.info("Deleted {} existing results for event {}", existingCount, eventId);
-                return existingCount;
+    /**
+     * The restarted job skips rows by position, so it must see the same file as the failed
+     * run. A file started with a hash is read again and must still have it. A streamed
+     * upload has no hash when it starts, so its audit copy must have been written during the
+     * run, which it only is if the whole body arrived; any other file without a hash must not
+     * have been modified since the run began.
+     */
+    private void checkFileUnchanged(JobExecution failed) {
+        JobParameters params = failed.getJobParameters();
+        Path file = Paths.get(params.getString("filePath"));
+        try {
+            if (!Files.exists(file)) {
+                throw new ExcelProcessException("File of job " + failed.getId() + " no longer exists, upload it again");
+            }
+            String fileSha256 = params.getString("fileSha256");
+            boolean changed;
+            if (fileSha256 != null) {
+                changed = !fileSha256.equals(UploadedFileHash.of(file));
             } else {
-                log.info("No existing results found for event {}", eventId);
-                return 0;
+                Instant modified = Files.getLastModifiedTime(file).toInstant();
+                Instant created = failed.getCreateTime().atZone(ZoneId.systemDefault()).toInstant();
+                changed = params.getString("streamId") != null ? modified.isBefore(created) : modified.isAfter(created);
             }
-
-        } catch (Exception e) {
-            log.error("Error deleting existing results for event {}: {}", eventId, e.getMessage(), e);
-            throw new ExcelProcessException("Failed to delete existing results: " + e.getMessage());
+            if (changed) {
+                throw new ExcelProcessException("File of job " + failed.getId() + " changed since it ran, upload it again");
+            }
+        } catch (IOException e) {
+            throw new ExcelProcessException("Cannot check file of job " + failed.getId() + ": " + e.getMessage());
         }
     }
+
+    /**
+     * Whether the event's results are exactly those of the file with this hash: its last
+     * completed upload job read that file, and no job or result edit has changed them since.
+     */
+    private boolean isLastIngestedFile(Long eventId, String fileSha256) {
+        return fileSha256 != null
+                && !jobScheduler.hasJobFor(eventId)
+                && fileSha256.equals(eventRepository.findLastIngestSha256(eventId));
+    }
+
+    /**
+     * Existing results the job deletes: all of them for a replace upload, at the start, or
+     * a staged upload, when it swaps its rows in.
+     */
+    private long countResultsToDelete(Long eventId, IngestMode mode) {
+        return mode == IngestMode.REPLACE || mode == IngestMode.STAGED ? resultRepository.countByEventId(eventId) : 0;
+    }
 /*
 
     private StepExecution getProcessingStepExecution(JobExecution jobExecution) {
@@ -0,0 +1,73 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the bib numbers of one event during an ingest. It records every
+ * bib of the file with the sheet row it came from. Safe to use from several partitions
+ * at once.
+ * <p>
+ * For a {@link IngestMode#REPLACE} upload it is seeded with the bibs already stored for
+ * the event, which count as duplicates. For a {@link IngestMode#DELTA} upload the stored
+ * results are kept separately, so rows can be matched against them.
+ */
+public class BibIndex {
+
+    /**
+     * Row number recorded for bibs that were already stored before the job started.
+     */
+    public static final int STORED = 0;
+
+    private final Map<String, Integer> rowsByBib;
+    private final Map<String, StoredResult> storedByBib;
+
+    public BibIndex(Collection<String> storedBibs) {
+        this.rowsByBib = new ConcurrentHashMap<>(Math.max(16, storedBibs.size() * 2));
+        this.storedByBib = Map.of();
+        for (String bib : storedBibs) {
+            rowsByBib.put(bib, STORED);
+        }
+    }
+
+    private BibIndex(Map<String, StoredResult> storedByBib) {
+        this.rowsByBib = new ConcurrentHashMap<>(Math.max(16, storedByBib.size() * 2));
+        this.storedByBib = storedByBib;
+    }
+
+    /**
+     * Index for a delta upload over the given stored results.
+     */
+    public static BibIndex forDelta(List<StoredResult> storedResults) {
+        Map<String, StoredResult> stored = new ConcurrentHashMap<>(Math.max(16, storedResults.size() * 2));
+        for (StoredResult result : storedResults) {
+            stored.put(result.bibNumber(), result);
+        }
+        return new BibIndex(stored);
+    }
+
+    /**
+     * Records a bib from the file.
+     *
+     * @param bibNumber the bib number
+     * @param rowNumber the sheet row it was read from
+     * @return {@code null} if the bib is new, {@link #STORED} if the event already has it,
+     * otherwise the row of the earlier occurrence in the file
+     */
+    public Integer register(String bibNumber, int rowNumber) {
+        return rowsByBib.putIfAbsent(bibNumber, rowNumber);
+    }
+
+    /**
+     * @return the stored result with that bib in a delta upload, otherwise {@code null}
+     */
+    public StoredResult getStored(String bibNumber) {
+        return bibNumber != null ? storedByBib.get(bibNumber) : null;
+    }
+
+    public int size() {
+        return rowsByBib.size();
+    }
+}
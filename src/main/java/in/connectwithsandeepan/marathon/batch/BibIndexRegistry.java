@@ -0,0 +1,59 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link BibIndex} per running job execution. The index is loaded with a
+ * single query the first time a processor asks for it and dropped when the job ends. The
+ * query runs on the batch pool, like the rest of the job's statements.
+ * A plain {@code @JobScope} bean is not used because partition workers run on threads
+ * that only carry the step context.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BibIndexRegistry {
+
+    static final String SELECT_STORED_RESULTS = "SELECT bib_number, id, content_hash FROM result WHERE event_id = ?";
+    static final String SELECT_STAGED_BIBS = "SELECT bib_number FROM result_staging WHERE job_instance_id = ?";
+    static final String SELECT_STORED_BIBS = "SELECT bib_number FROM result WHERE event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, BibIndex> indexes = new ConcurrentHashMap<>();
+
+    public BibIndex getIndex(Long jobExecutionId, Long eventId, IngestMode mode) {
+        return indexes.computeIfAbsent(jobExecutionId, id -> {
+            if (mode == IngestMode.DELTA) {
+                List<StoredResult> stored = jdbcTemplate.query(SELECT_STORED_RESULTS,
+                        (rs, rowNum) -> new StoredResult(rs.getString(1), rs.getLong(2), rs.getObject(3, Long.class)),
+                        eventId);
+                log.info("Loaded {} stored results for delta upload of event {} (job execution {})", stored.size(), eventId, id);
+                return BibIndex.forDelta(stored);
+            }
+            if (mode == IngestMode.STAGED) {
+                // the stored results get replaced; only rows this job staged before a restart count
+                List<String> stagedBibs = jdbcTemplate.queryForList(SELECT_STAGED_BIBS, String.class,
+                        IngestMode.stagingJobInstanceId());
+                log.info("Loaded {} staged bib numbers for event {} (job execution {})", stagedBibs.size(), eventId, id);
+                return new BibIndex(stagedBibs);
+            }
+            List<String> storedBibs = jdbcTemplate.queryForList(SELECT_STORED_BIBS, String.class, eventId);
+            log.info("Loaded {} stored bib numbers for event {} (job execution {})", storedBibs.size(), eventId, id);
+            return new BibIndex(storedBibs);
+        });
+    }
+
+    public void release(Long jobExecutionId) {
+        BibIndex index = indexes.remove(jobExecutionId);
+        if (index != null) {
+            log.info("Released bib index of job execution {} ({} bibs)", jobExecutionId, index.size());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.step.item.ChunkProcessor;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the rows of a chunk that violate a constraint without leaving the chunk's
+ * transaction. When writing the chunk fails with a {@link DataIntegrityViolationException},
+ * the write is rolled back to a savepoint, the chunk is split in half and each half is
+ * written under its own savepoint, recursively, until the failing rows are written alone.
+ * Those rows are skipped under the step's skip policy and counted as write skips; the
+ * rest of the chunk commits with it. For k bad rows in a chunk of n this takes about
+ * k log n writes, where the step's own recovery rolls back and rewrites the chunk one row
+ * per transaction.
+ * <p>
+ * Other exceptions are passed on, so retries and the step's item by item scan still
+ * handle them. The chunk's transaction manager must support savepoints and the delegate
+ * must leave its items as it found them when a write fails.
+ */
+@Slf4j
+public class BisectingItemWriter<T> implements ItemWriter<T> {
+
+    private final ItemWriter<? super T> delegate;
+    private final PlatformTransactionManager transactionManager;
+    private final SkipPolicy skipPolicy;
+    private final DefaultTransactionDefinition savepoint =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NESTED);
+
+    // the contribution of the chunk being processed on this thread
+    private final ThreadLocal<StepContribution> contribution = new ThreadLocal<>();
+
+    public BisectingItemWriter(ItemWriter<? super T> delegate, PlatformTransactionManager transactionManager,
+                               SkipPolicy skipPolicy) {
+        this.delegate = delegate;
+        this.transactionManager = transactionManager;
+        this.skipPolicy = skipPolicy;
+    }
+
+    /**
+     * Wraps the step's chunk processor so the skips found while writing a chunk are
+     * counted in that chunk's contribution.
+     */
+    public <I> ChunkProcessor<I> countingSkipsOf(ChunkProcessor<I> chunkProcessor) {
+        return (contribution, chunk) -> {
+            this.contribution.set(contribution);
+            try {
+                chunkProcessor.process(contribution, chunk);
+            } finally {
+                this.contribution.remove();
+            }
+        };
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        StepContribution contribution = this.contribution.get();
+        // single rows come from the step's own scan, which skips them itself
+        if (contribution == null || chunk.size() < 2) {
+            delegate.write(chunk);
+            return;
+        }
+
+        Map<T, DataIntegrityViolationException> failures = new IdentityHashMap<>();
+        int writes = writeOrSplit(new ArrayList<>(chunk.getItems()), failures);
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        for (var iterator = chunk.iterator(); iterator.hasNext(); ) {
+            DataIntegrityViolationException failure = failures.get(iterator.next());
+            if (failure == null) {
+                continue;
+            }
+            if (!skipPolicy.shouldSkip(failure, contribution.getStepSkipCount())) {
+                throw failure;
+            }
+            contribution.incrementWriteSkipCount();
+            iterator.remove(failure);
+        }
+        log.warn("Skipped {} of {} rows failing with a constraint violation, found in {} writes",
+                failures.size(), chunk.size() + failures.size(), writes);
+    }
+
+    /**
+     * Writes {@code items} under a savepoint, splitting them in halves while the write
+     * fails, and collects the rows that fail on their own.
+     *
+     * @return the number of writes it took
+     */
+    private int writeOrSplit(List<T> items, Map<T, DataIntegrityViolationException> failures) throws Exception {
+        TransactionStatus status = transactionManager.getTransaction(savepoint);
+        try {
+            delegate.write(new Chunk<>(items));
+        } catch (DataIntegrityViolationException e) {
+            transactionManager.rollback(status);
+            if (items.size() == 1) {
+                failures.put(items.get(0), e);
+                return 1;
+            }
+            int half = items.size() / 2;
+            log.debug("Write of {} rows failed, writing them in halves: {}", items.size(), e.getMessage());
+            return 1 + writeOrSplit(items.subList(0, half), failures)
+                    + writeOrSplit(items.subList(half, items.size()), failures);
+        } catch (Exception | Error e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        transactionManager.commit(status);
+        return 1;
+    }
+}
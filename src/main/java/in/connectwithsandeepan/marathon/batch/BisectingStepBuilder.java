@@ -0,0 +1,34 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.item.ChunkProcessor;
+
+/**
+ * Fault tolerant step builder whose writer isolates the rows failing with a constraint
+ * violation with a {@link BisectingItemWriter}, under the step's skip policy. Use in place
+ * of {@link SimpleStepBuilder#faultTolerant()} for steps whose chunk transaction manager
+ * supports savepoints; with {@code bisect} off the step recovers item by item as usual.
+ */
+public class BisectingStepBuilder<I, O> extends FaultTolerantStepBuilder<I, O> {
+
+    private final boolean bisect;
+
+    public BisectingStepBuilder(SimpleStepBuilder<I, O> parent, boolean bisect) {
+        super(parent);
+        this.bisect = bisect;
+    }
+
+    @Override
+    protected ChunkProcessor<I> createChunkProcessor() {
+        if (!bisect) {
+            return super.createChunkProcessor();
+        }
+
+        BisectingItemWriter<O> writer = new BisectingItemWriter<>(
+                getWriter(), getTransactionManager(), getFatalExceptionAwareProxy(createSkipPolicy()));
+        // the delegate's streams and listeners were registered by build() before it gets here
+        writer(writer);
+        return writer.countingSkipsOf(super.createChunkProcessor());
+    }
+}
@@ -0,0 +1,17 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * An {@link ItemProcessor} that can do its work for a whole chunk at once. The step
+ * calls {@link #prepareChunk} with every item of the chunk before it processes them;
+ * {@link #process} then hands out the prepared outcome of each item, so skips, filters
+ * and retries are still counted item by item.
+ * <p>
+ * A chunk that is processed again after a rollback is prepared again.
+ */
+public interface ChunkPreparingItemProcessor<I, O> extends ItemProcessor<I, O> {
+
+    void prepareChunk(Chunk<? extends I> chunk) throws Exception;
+}
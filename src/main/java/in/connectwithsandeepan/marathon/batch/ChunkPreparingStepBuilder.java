@@ -0,0 +1,29 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.item.ChunkProcessor;
+
+/**
+ * Fault tolerant step builder that hands each chunk to a
+ * {@link ChunkPreparingItemProcessor} before the usual item by item processing and
+ * writing. Use in place of {@link SimpleStepBuilder#faultTolerant()}.
+ */
+public class ChunkPreparingStepBuilder<I, O> extends BisectingStepBuilder<I, O> {
+
+    private final ChunkPreparingItemProcessor<I, ?> preparingProcessor;
+
+    public ChunkPreparingStepBuilder(SimpleStepBuilder<I, O> parent, ChunkPreparingItemProcessor<I, ?> preparingProcessor,
+                                     boolean bisect) {
+        super(parent, bisect);
+        this.preparingProcessor = preparingProcessor;
+    }
+
+    @Override
+    protected ChunkProcessor<I> createChunkProcessor() {
+        ChunkProcessor<I> chunkProcessor = super.createChunkProcessor();
+        return (contribution, chunk) -> {
+            preparingProcessor.prepareChunk(chunk);
+            chunkProcessor.process(contribution, chunk);
+        };
+    }
+}
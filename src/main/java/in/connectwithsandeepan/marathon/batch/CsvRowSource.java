@@ -0,0 +1,242 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes comma separated rows straight from a {@link ByteBuffer}. Field bounds are
+ * found on the raw bytes and only the field values are turned into strings; no
+ * per-line string is built. Quoted fields, doubled quotes, CRLF line ends and a
+ * leading UTF-8 byte order mark are supported. Values are trimmed like spreadsheet
+ * cells and blank lines are skipped.
+ * <p>
+ * Subclasses supply the bytes. A source that cannot expose the whole file at once
+ * overrides {@link #refill()} to load more data when a row runs past the end of the
+ * buffer.
+ */
+public abstract class CsvRowSource implements SheetRowSource {
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    protected ByteBuffer buffer;
+
+    private String[] cells = new String[16];
+    private int cellCount;
+    private int rowNumber = -1;
+    private int lineNumber;
+    private byte[] scratch = new byte[256];
+    private boolean bomChecked;
+
+    protected CsvRowSource(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Makes more bytes available after the unread part of {@link #buffer}. Called when a
+     * row is not complete within the buffer; the unread bytes starting at the buffer
+     * position must be kept.
+     *
+     * @return {@code false} if the end of the input has been reached
+     */
+    protected boolean refill() throws IOException {
+        return false;
+    }
+
+    /**
+     * Adds {@code length} bytes of {@code block} after the unread part of {@link #buffer},
+     * growing it when they do not fit. For use in {@link #refill()}.
+     */
+    protected void append(byte[] block, int length) {
+        buffer.compact();
+        if (buffer.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        buffer.put(block, 0, length);
+        buffer.flip();
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        return advance(true);
+    }
+
+    /**
+     * Moves past the next row like {@link #next()} without decoding its cells, for
+     * passes that only count rows or find where they start. The cells of the skipped
+     * row are not available.
+     */
+    public boolean skip() throws IOException {
+        return advance(false);
+    }
+
+    /**
+     * @return line number, zero based, on which the next row starts
+     */
+    protected int getNextLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Continues reading at {@code position} of {@link #buffer}, the start of a row on
+     * line {@code line}.
+     */
+    protected void resumeAt(int position, int line) {
+        buffer.position(position);
+        lineNumber = line;
+        bomChecked = true;
+        Arrays.fill(cells, 0, cellCount, null);
+        cellCount = 0;
+    }
+
+    private boolean advance(boolean decodeCells) throws IOException {
+        if (!bomChecked) {
+            skipByteOrderMark();
+            bomChecked = true;
+        }
+        while (true) {
+            int end = findRowEnd();
+            if (end < 0) {
+                if (refill()) {
+                    continue;
+                }
+                end = buffer.limit();
+                if (end == buffer.position()) {
+                    return false;
+                }
+            }
+            if (parseRow(buffer.position(), end, decodeCells)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public String getCell(int column) {
+        return column < cellCount ? cells[column] : null;
+    }
+
+    /**
+     * Finds the line feed that ends the row starting at the buffer position, ignoring
+     * line feeds inside quoted fields.
+     *
+     * @return index of the terminating line feed, or -1 if the row is not complete
+     */
+    private int findRowEnd() {
+        boolean quoted = false;
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                quoted = !quoted;
+            } else if (b == LF && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits the bytes {@code [start, end)} into cells, unless {@code decodeCells} is
+     * {@code false}, and moves the buffer past the row.
+     *
+     * @return {@code false} for a blank line
+     */
+    private boolean parseRow(int start, int end, boolean decodeCells) {
+        int next = Math.min(end + 1, buffer.limit());
+        int rowEnd = end > start && buffer.get(end - 1) == CR ? end - 1 : end;
+        int firstLine = lineNumber;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == LF) lineNumber++;
+        }
+        lineNumber++;
+        buffer.position(next);
+
+        Arrays.fill(cells, 0, cellCount, null);
+        cellCount = 0;
+        if (rowEnd == start) {
+            return false;
+        }
+
+        rowNumber = firstLine;
+        if (!decodeCells) {
+            return true;
+        }
+        int fieldStart = start;
+        boolean quoted = false;
+        for (int i = start; i <= rowEnd; i++) {
+            if (i == rowEnd || (buffer.get(i) == COMMA && !quoted)) {
+                store(cellCount, decode(fieldStart, i));
+                fieldStart = i + 1;
+            } else if (buffer.get(i) == QUOTE) {
+                quoted = !quoted;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes one field as UTF-8, removing surrounding quotes, doubled quotes and
+     * leading or trailing whitespace.
+     */
+    private String decode(int start, int end) {
+        if (end - start > scratch.length) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                if (quoted && i + 1 < end && buffer.get(i + 1) == QUOTE) {
+                    scratch[length++] = QUOTE;
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else {
+                scratch[length++] = b;
+            }
+        }
+
+        int from = 0;
+        while (from < length && (scratch[from] & 0xFF) <= ' ') from++;
+        while (length > from && (scratch[length - 1] & 0xFF) <= ' ') length--;
+        return new String(scratch, from, length - from, StandardCharsets.UTF_8);
+    }
+
+    private void store(int column, String value) {
+        if (column >= cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        cells[column] = value;
+        cellCount = column + 1;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        while (buffer.remaining() < 3 && refill()) {
+            // keep loading until three bytes are available or the input ends
+        }
+        int p = buffer.position();
+        if (buffer.remaining() >= 3
+                && buffer.get(p) == (byte) 0xEF && buffer.get(p + 1) == (byte) 0xBB && buffer.get(p + 2) == (byte) 0xBF) {
+            buffer.position(p + 3);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Last step of a {@link IngestMode#DELTA} upload: deletes the stored results whose bib
+ * did not appear anywhere in the file, with their checkpoints, in batches of
+ * {@link #BATCH_SIZE}. Does nothing for a replace upload. Runs in the step transaction,
+ * so either all stale results go or none do.
+ * <p>
+ * The bibs of the file are read again here rather than collected by the ingest step. A
+ * restart skips the ingest step if it completed, and the partitions that completed, so
+ * the execution running this step may not have seen any row of the file. Every row counts,
+ * whether or not it turned out to be valid, so a stored result is never deleted because
+ * of a bad row.
+ */
+@Component
+@StepScope
+@Slf4j
+public class DeleteStaleResultsTasklet implements Tasklet {
+
+    static final int BATCH_SIZE = 1000;
+    static final String SELECT_STORED_RESULTS = "SELECT id, bib_number FROM result WHERE event_id = :eventId";
+    private static final String DELETE_CHECKPOINTS = "DELETE FROM checkpoint WHERE result_id IN (:ids)";
+    private static final String DELETE_RESULTS = "DELETE FROM result WHERE id IN (:ids)";
+
+    private final SheetRowSourceFactory rowSourceFactory;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String filePath;
+    private final Long eventId;
+    private final String streamId;
+    private final IngestMode mode;
+
+    public DeleteStaleResultsTasklet(
+            SheetRowSourceFactory rowSourceFactory,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("#{jobParameters['filePath']}") String filePath,
+            @Value("#{jobParameters['eventId']}") Long eventId,
+            @Value("#{jobParameters['streamId']}") String streamId,
+            @Value("#{jobParameters['mode']}") String mode) {
+        this.rowSourceFactory = rowSourceFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.filePath = filePath;
+        this.eventId = eventId;
+        this.streamId = streamId;
+        this.mode = IngestMode.fromParameter(mode);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        if (mode != IngestMode.DELTA) {
+            return RepeatStatus.FINISHED;
+        }
+
+        Set<String> fileBibs = readBibNumbers();
+        List<Long> staleIds = new ArrayList<>();
+        jdbcTemplate.query(SELECT_STORED_RESULTS, Map.of("eventId", eventId), (RowCallbackHandler) rs -> {
+            if (!fileBibs.contains(rs.getString(2))) {
+                staleIds.add(rs.getLong(1));
+            }
+        });
+        for (int from = 0; from < staleIds.size(); from += BATCH_SIZE) {
+            Map<String, List<Long>> batch = Map.of("ids", staleIds.subList(from, Math.min(from + BATCH_SIZE, staleIds.size())));
+            jdbcTemplate.update(DELETE_CHECKPOINTS, batch);
+            jdbcTemplate.update(DELETE_RESULTS, batch);
+        }
+
+        contribution.incrementWriteCount(staleIds.size());
+        IngestCounts.add(chunkContext.getStepContext().getStepExecution().getExecutionContext(),
+                IngestCounts.DELETED, staleIds.size());
+        log.info("Deleted {} results of event {} that are no longer in the uploaded file", staleIds.size(), eventId);
+        return RepeatStatus.FINISHED;
+    }
+
+    private Set<String> readBibNumbers() {
+        try (SheetRowSource rows = openUploadedFile()) {
+            Set<String> bibs = new HashSet<>();
+            if (!rows.next()) {
+                return bibs;
+            }
+            ResultRowCodec codec = ResultRowCodec.fromHeader(rows);
+            while (rows.next()) {
+                String bib = codec.bibNumber(rows);
+                if (bib != null) {
+                    bibs.add(bib);
+                }
+            }
+            log.info("Read {} bib numbers from {} to find stale results of event {}", bibs.size(), filePath, eventId);
+            return bibs;
+        } catch (IOException e) {
+            throw new ExcelReadingException("Could not read bib numbers from " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the file the ingest read. While the request of a streaming upload is still
+     * finishing, its complete audit copy may not have been moved into place yet.
+     */
+    private SheetRowSource openUploadedFile() throws IOException {
+        if (streamId != null) {
+            Path partial = IngestStream.partialCopyOf(Paths.get(filePath));
+            try {
+                // streamed uploads are always CSV
+                return new MappedCsvRowSource(partial);
+            } catch (NoSuchFileException e) {
+                // already moved into place
+            }
+        }
+        return rowSourceFactory.open(filePath);
+    }
+}
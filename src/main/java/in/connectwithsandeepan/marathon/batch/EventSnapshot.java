@@ -0,0 +1,62 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.entity.Event;
+import in.connectwithsandeepan.marathon.entity.EventCategory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The event and categories a result upload links its results to. Holds detached copies
+ * with only the columns the ingest needs, so no lazy collection can be touched outside a
+ * session and long descriptions are not kept in memory.
+ */
+public class EventSnapshot {
+
+    private final Event event;
+    private final Map<String, EventCategory> categoriesByName;
+
+    private EventSnapshot(Event event, Map<String, EventCategory> categoriesByName) {
+        this.event = event;
+        this.categoriesByName = categoriesByName;
+    }
+
+    public static EventSnapshot of(Event source, List<EventCategory> categories) {
+        Event event = new Event();
+        event.setId(source.getId());
+        event.setEventName(source.getEventName());
+        event.setEventDate(source.getEventDate());
+
+        List<EventCategory> copies = new ArrayList<>(categories.size());
+        Map<String, EventCategory> byName = new HashMap<>();
+        for (EventCategory category : categories) {
+            EventCategory copy = new EventCategory();
+            copy.setId(category.getId());
+            copy.setCategoryName(category.getCategoryName());
+            copy.setFlagOffTime(category.getFlagOffTime());
+            copy.setEvent(event);
+            copies.add(copy);
+            byName.putIfAbsent(copy.getCategoryName(), copy);
+        }
+        event.setEventCategories(copies);
+        return new EventSnapshot(event, Collections.unmodifiableMap(byName));
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * @return the category with that name, or {@code null} if the event has none
+     */
+    public EventCategory getCategory(String categoryName) {
+        return categoriesByName.get(categoryName);
+    }
+
+    public int getCategoryCount() {
+        return categoriesByName.size();
+    }
+}
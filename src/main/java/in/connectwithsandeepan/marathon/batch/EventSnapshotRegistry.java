@@ -0,0 +1,74 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.entity.Event;
+import in.connectwithsandeepan.marathon.entity.EventCategory;
+import in.connectwithsandeepan.marathon.exception.ProcessorInitializationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link EventSnapshot} per running job execution, loaded from the database
+ * the first time a processor asks for it and dropped when the job ends. Like
+ * {@link BibIndexRegistry} this stands in for a {@code @JobScope} bean, which partition
+ * worker threads cannot resolve. Only the columns the snapshot keeps are read, on the
+ * batch pool.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventSnapshotRegistry {
+
+    static final String SELECT_EVENT = "SELECT id, event_name, event_date FROM event WHERE id = ?";
+    static final String SELECT_CATEGORIES =
+            "SELECT id, category_name, flag_off_time FROM event_category WHERE event_id = ? ORDER BY flag_off_time";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, EventSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public EventSnapshot getSnapshot(Long jobExecutionId, Long eventId) {
+        return snapshots.computeIfAbsent(jobExecutionId, id -> {
+            EventSnapshot snapshot = load(eventId);
+            log.info("Loaded event {} with {} categories (job execution {})",
+                    snapshot.getEvent().getEventName(), snapshot.getCategoryCount(), id);
+            return snapshot;
+        });
+    }
+
+    /**
+     * Loads a snapshot without keeping it, for callers outside a job.
+     */
+    public EventSnapshot load(Long eventId) {
+        List<Event> events = jdbcTemplate.query(SELECT_EVENT, (rs, rowNum) -> {
+            Event event = new Event();
+            event.setId(rs.getLong(1));
+            event.setEventName(rs.getString(2));
+            event.setEventDate(rs.getObject(3, LocalDate.class));
+            return event;
+        }, eventId);
+        if (events.isEmpty()) {
+            throw new ProcessorInitializationException("Event not found: " + eventId);
+        }
+        List<EventCategory> categories = jdbcTemplate.query(SELECT_CATEGORIES, (rs, rowNum) -> {
+            EventCategory category = new EventCategory();
+            category.setId(rs.getLong(1));
+            category.setCategoryName(rs.getString(2));
+            category.setFlagOffTime(rs.getObject(3, LocalTime.class));
+            return category;
+        }, eventId);
+        return EventSnapshot.of(events.get(0), categories);
+    }
+
+    public void release(Long jobExecutionId) {
+        if (snapshots.remove(jobExecutionId) != null) {
+            log.info("Released event snapshot of job execution {}", jobExecutionId);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.batch.BatchTransactionManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves blocks of primary keys from the table-backed sequences Hibernate uses for
+ * {@code GenerationType.AUTO} on MySQL ({@code result_seq}, {@code checkpoint_seq}).
+ * <p>
+ * Hibernate's pooled optimizer treats every value it reads as the top of a block of
+ * {@link #ALLOCATION_SIZE} ids and moves {@code next_val} up by one block. Moving it up
+ * by several blocks at once therefore hands out ids that JPA inserts will never reuse.
+ */
+@Component
+@Slf4j
+public class IdBlockAllocator {
+
+    /**
+     * Default JPA allocation size, used by every entity in this project.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, @BatchTransactionManager PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserves at least {@code count} consecutive ids in a separate transaction, so the
+     * sequence row is locked only for the duration of the update.
+     *
+     * @param sequenceTable the sequence table, e.g. {@code result_seq}
+     * @param count         number of ids needed
+     * @return the first reserved id; ids {@code first .. first + count - 1} are free to use
+     */
+    public long allocate(String sequenceTable, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        Long first = newTransaction.execute(status -> {
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT next_val FROM " + sequenceTable + " FOR UPDATE", Long.class);
+            if (current == null) {
+                throw new IllegalStateException("Sequence table " + sequenceTable + " has no value");
+            }
+
+            long low = Math.max(1, current - ALLOCATION_SIZE + 1);
+            long blocks = 1;
+            while (current + (blocks - 1) * ALLOCATION_SIZE - low + 1 < count) {
+                blocks++;
+            }
+
+            jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = ?", current + blocks * ALLOCATION_SIZE);
+            return low;
+        });
+        log.debug("Reserved {} ids from {} starting at {}", count, sequenceTable, first);
+        return first;
+    }
+}
@@ -0,0 +1,43 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.Collection;
+
+/**
+ * Per-step counters of what an upload did to the stored results, kept in the step
+ * {@link ExecutionContext} so they are saved with every commit and can be summed over
+ * partitions by the status endpoint. Rows left alone by a delta upload are the step's
+ * filter count.
+ */
+public final class IngestCounts {
+
+    public static final String INSERTED = "results.inserted";
+    public static final String UPDATED = "results.updated";
+    public static final String DELETED = "results.deleted";
+
+    private IngestCounts() {
+    }
+
+    /**
+     * Adds to a counter of the step running on this thread. Called after the rows were
+     * written, so a failed write is not counted.
+     */
+    public static void add(String key, long count) {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context != null && count > 0) {
+            add(context.getStepExecution().getExecutionContext(), key, count);
+        }
+    }
+
+    public static void add(ExecutionContext executionContext, String key, long count) {
+        executionContext.putLong(key, executionContext.getLong(key, 0L) + count);
+    }
+
+    public static long sum(Collection<StepExecution> steps, String key) {
+        return steps.stream().mapToLong(step -> step.getExecutionContext().getLong(key, 0L)).sum();
+    }
+}
@@ -0,0 +1,255 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.exception.IngestQueueFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Launches the upload jobs on a fixed number of workers instead of a new thread per
+ * launch. A launched job gets its {@link JobExecution} straight away and then waits in a
+ * queue of its event; at most one job per event runs at a time, and free workers take
+ * the next job from the events in turn, so one organiser uploading repeatedly does not
+ * hold up the others.
+ * <p>
+ * Launches are refused with {@link IngestQueueFullException} when {@code queueCapacity}
+ * jobs are already waiting. A streaming upload cannot wait, as its request is feeding
+ * the job, so it is refused unless it can start at once. How long a job waited is saved
+ * in its job {@link org.springframework.batch.item.ExecutionContext} under
+ * {@link #QUEUE_WAIT_MS}. The queue lives in memory; jobs still waiting when the
+ * application stops are left in STARTING. Only the queue bookkeeping holds the
+ * scheduler's lock; executions are created in the job repository outside it.
+ */
+@Slf4j
+public class IngestJobScheduler implements JobLauncher {
+
+    public static final String QUEUE_WAIT_MS = "queueWaitMs";
+
+    private final TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+    private final JobRepository jobRepository;
+    private final IngestStreamRegistry streamRegistry;
+    private final TaskExecutor workers;
+    private final int workerCount;
+    private final int queueCapacity;
+
+    // the launcher hands its runnable over on the calling thread
+    private final ThreadLocal<Runnable> handoff = new ThreadLocal<>();
+    // waiting jobs per event, events in the order they get their next turn
+    private final LinkedHashMap<Long, Deque<QueuedJob>> queues = new LinkedHashMap<>();
+    private final Map<Long, QueuedJob> queuedByExecutionId = new HashMap<>();
+    private final Set<Long> runningEvents = new HashSet<>();
+    // launches admitted whose execution is still being created
+    private final Map<Long, Integer> launchingByEvent = new HashMap<>();
+    private int launching;
+    private int busyWorkers;
+
+    public IngestJobScheduler(JobRepository jobRepository, IngestStreamRegistry streamRegistry,
+                              TaskExecutor workers, int workerCount, int queueCapacity) throws Exception {
+        this.jobRepository = jobRepository;
+        this.streamRegistry = streamRegistry;
+        this.workers = workers;
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+        launcher.setJobRepository(jobRepository);
+        launcher.setTaskExecutor(handoff::set);
+        launcher.afterPropertiesSet();
+    }
+
+    @Override
+    public JobExecution run(Job job, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException,
+            JobInstanceAlreadyCompleteException, JobParametersInvalidException {
+
+        Long eventId = jobParameters.getLong("eventId");
+        // a restarted streaming job reads the audit copy and can wait like any other
+        String streamId = jobParameters.getString("streamId");
+        boolean liveStream = streamId != null && streamRegistry.isOpen(streamId);
+        reserve(eventId, liveStream);
+
+        JobExecution execution = null;
+        Runnable task = null;
+        try {
+            // creating the execution writes to the job repository, so it happens outside the lock
+            execution = launcher.run(job, jobParameters);
+            task = handoff.get();
+        } finally {
+            handoff.remove();
+            enqueue(eventId, liveStream, execution, task);
+        }
+        return execution;
+    }
+
+    /**
+     * Admits a launch and holds its place in the queue, or for a live stream its worker,
+     * while the execution is created.
+     */
+    private synchronized void reserve(Long eventId, boolean liveStream) {
+        admit(eventId, liveStream);
+        launchingByEvent.merge(eventId, 1, Integer::sum);
+        launching++;
+        if (liveStream) {
+            busyWorkers++;
+            runningEvents.add(eventId);
+        }
+    }
+
+    /**
+     * Queues a created execution, or starts a live stream's on its reserved worker. Without
+     * an execution to run the reservation is given back.
+     */
+    private synchronized void enqueue(Long eventId, boolean liveStream, JobExecution execution, Runnable task) {
+        launchingByEvent.computeIfPresent(eventId, (id, count) -> count > 1 ? count - 1 : null);
+        launching--;
+        if (task == null) {
+            if (liveStream) {
+                busyWorkers--;
+                runningEvents.remove(eventId);
+            }
+            dispatch();
+            return;
+        }
+
+        QueuedJob queued = new QueuedJob(execution, eventId, task, System.currentTimeMillis());
+        if (liveStream) {
+            workers.execute(() -> runQueued(queued));
+            return;
+        }
+        queues.computeIfAbsent(eventId, id -> new ArrayDeque<>()).add(queued);
+        queuedByExecutionId.put(execution.getId(), queued);
+        dispatch();
+
+        if (queuedByExecutionId.containsKey(execution.getId())) {
+            log.info("Job {} for event {} queued at position {}", execution.getId(), eventId,
+                    queueStatus(execution.getId()).map(QueueStatus::position).orElse(0));
+        }
+    }
+
+    /**
+     * @return the position (1 is next) and waiting time of a queued job, empty once it
+     * has started or if it was never queued here
+     */
+    public synchronized Optional<QueueStatus> queueStatus(Long jobExecutionId) {
+        QueuedJob target = queuedByExecutionId.get(jobExecutionId);
+        if (target == null) {
+            return Optional.empty();
+        }
+        // jobs leave the queues one event at a time, so every event in line first gives up
+        // as many jobs as wait ahead of the target in its own queue, and one more if it
+        // comes before the target's event
+        List<QueuedJob> own = new ArrayList<>(queues.get(target.eventId()));
+        int round = own.indexOf(target);
+        int position = 1;
+        boolean beforeTarget = true;
+        for (Map.Entry<Long, Deque<QueuedJob>> event : queues.entrySet()) {
+            if (Objects.equals(event.getKey(), target.eventId())) {
+                beforeTarget = false;
+            }
+            int size = event.getValue().size();
+            position += Math.min(size, round) + (beforeTarget && size > round ? 1 : 0);
+        }
+        return Optional.of(new QueueStatus(target.eventId(), position, System.currentTimeMillis() - target.queuedAt()));
+    }
+
+    /**
+     * @return whether a job of the event is running or waiting here
+     */
+    public synchronized boolean hasJobFor(Long eventId) {
+        return runningEvents.contains(eventId) || queues.containsKey(eventId) || launchingByEvent.containsKey(eventId);
+    }
+
+    private void admit(Long eventId, boolean liveStream) {
+        if (liveStream) {
+            if (busyWorkers >= workerCount || hasJobFor(eventId)) {
+                throw new IngestQueueFullException("No ingest worker is free for a streaming upload of event "
+                        + eventId + ", try again later or upload the file and use /start");
+            }
+        } else if (queuedByExecutionId.size() + launching >= queueCapacity) {
+            throw new IngestQueueFullException("Ingest queue is full with " + queueCapacity
+                    + " waiting jobs, try again later");
+        }
+    }
+
+    /**
+     * Starts waiting jobs while workers are free, taking events in turn and skipping
+     * events that already have a job running.
+     */
+    private void dispatch() {
+        while (busyWorkers < workerCount) {
+            QueuedJob next = pollNext();
+            if (next == null) {
+                return;
+            }
+            busyWorkers++;
+            runningEvents.add(next.eventId());
+            queuedByExecutionId.remove(next.execution().getId());
+            workers.execute(() -> runQueued(next));
+        }
+    }
+
+    private QueuedJob pollNext() {
+        Iterator<Map.Entry<Long, Deque<QueuedJob>>> events = queues.entrySet().iterator();
+        while (events.hasNext()) {
+            Map.Entry<Long, Deque<QueuedJob>> event = events.next();
+            if (runningEvents.contains(event.getKey())) {
+                continue;
+            }
+            QueuedJob next = event.getValue().poll();
+            // the event goes to the back of the line
+            events.remove();
+            if (!event.getValue().isEmpty()) {
+                queues.put(event.getKey(), event.getValue());
+            }
+            return next;
+        }
+        return null;
+    }
+
+    private void runQueued(QueuedJob job) {
+        JobExecution execution = job.execution();
+        long waitedMs = System.currentTimeMillis() - job.queuedAt();
+        try {
+            execution.getExecutionContext().putLong(QUEUE_WAIT_MS, waitedMs);
+            try {
+                jobRepository.updateExecutionContext(execution);
+            } catch (RuntimeException e) {
+                log.warn("Could not save queue wait of job {}: {}", execution.getId(), e.getMessage());
+            }
+            log.info("Running job {} for event {} after {} ms in the queue", execution.getId(), job.eventId(), waitedMs);
+            job.task().run();
+        } finally {
+            synchronized (this) {
+                busyWorkers--;
+                runningEvents.remove(job.eventId());
+                dispatch();
+            }
+        }
+    }
+
+    public record QueueStatus(Long eventId, int position, long waitingMs) {
+    }
+
+    private record QueuedJob(JobExecution execution, Long eventId, Runnable task, long queuedAt) {
+    }
+}
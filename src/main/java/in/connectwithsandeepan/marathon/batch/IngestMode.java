@@ -0,0 +1,46 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+/**
+ * What a result upload does with the results already stored for the event.
+ */
+public enum IngestMode {
+    /**
+     * Delete all stored results before the job starts and insert every row of the file.
+     */
+    REPLACE,
+    /**
+     * Compare the file with the stored results by bib: insert new bibs, update rows whose
+     * content changed, leave unchanged rows alone and delete bibs missing from the file.
+     */
+    DELTA,
+    /**
+     * Load the file into the staging tables and, once every row is in, replace the stored
+     * results with it in one transaction. Readers see the old results until then, and a
+     * failed job leaves them untouched.
+     */
+    STAGED;
+
+    /**
+     * Reads the {@code mode} job parameter; jobs started without one replace.
+     */
+    public static IngestMode fromParameter(String mode) {
+        return mode != null ? valueOf(mode) : REPLACE;
+    }
+
+    /**
+     * @return the job instance whose staging rows the step running on this thread reads
+     * and writes, or {@code null} if the step is not part of a staged upload
+     */
+    public static Long stagingJobInstanceId() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return null;
+        }
+        JobExecution jobExecution = context.getStepExecution().getJobExecution();
+        return fromParameter(jobExecution.getJobParameters().getString("mode")) == STAGED ? jobExecution.getJobId() : null;
+    }
+}
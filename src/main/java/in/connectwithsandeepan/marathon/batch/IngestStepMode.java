@@ -0,0 +1,21 @@
+package in.connectwithsandeepan.marathon.batch;
+
+/**
+ * How the result upload job runs its reader, processor and writer.
+ */
+public enum IngestStepMode {
+    /**
+     * One thread reads, validates and writes the whole sheet in chunks.
+     */
+    SIMPLE,
+    /**
+     * The sheet is split into row ranges that are ingested in parallel. Only plain CSV
+     * files can be read from the middle; other formats run {@link #PIPELINED}.
+     */
+    PARTITIONED,
+    /**
+     * Parsing, validation and writing overlap: rows are read ahead on their own thread
+     * and processed concurrently while earlier chunks are written.
+     */
+    PIPELINED
+}
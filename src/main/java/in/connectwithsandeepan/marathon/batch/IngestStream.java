@@ -0,0 +1,139 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the body of a streaming upload from the request thread to the ingest job. The
+ * request thread copies the body in blocks into a bounded queue, writing an audit copy
+ * of every block on the way; the job's reader parses the blocks as they arrive. When the
+ * queue is full the request thread stops reading the body, so a slow ingest slows the
+ * upload down instead of buffering it in memory.
+ */
+@Slf4j
+public class IngestStream {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final byte[] END = new byte[0];
+    private static final byte[] FAILED = new byte[0];
+
+    private final String id;
+    private final BlockingQueue<byte[]> blocks;
+    private final Duration idleTimeout;
+
+    private volatile boolean released;
+    private volatile IOException failure;
+
+    IngestStream(String id, int capacityBlocks, Duration idleTimeout) {
+        this.id = id;
+        this.blocks = new ArrayBlockingQueue<>(capacityBlocks);
+        this.idleTimeout = idleTimeout;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Where the audit copy of a stream is written until the whole body has been received.
+     */
+    static Path partialCopyOf(Path auditCopy) {
+        return auditCopy.resolveSibling(auditCopy.getFileName() + ".part");
+    }
+
+    /**
+     * Copies the whole request body into the stream and to {@code auditCopy}, then marks
+     * the end of the input.
+     *
+     * @return the number of bytes received
+     * @throws IllegalArgumentException if the body is larger than {@code maxBytes}
+     * @throws IOException if the body cannot be read or the ingest job stopped reading
+     */
+    public long transferFrom(InputStream body, Path auditCopy, long maxBytes) throws IOException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        long total = 0;
+        try (OutputStream audit = Files.newOutputStream(auditCopy)) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    fail(new IOException("Upload exceeds " + maxBytes + " bytes"));
+                    throw new IllegalArgumentException("Upload exceeds the maximum size of " + maxBytes + " bytes");
+                }
+                audit.write(buffer, 0, read);
+                put(Arrays.copyOf(buffer, read));
+            }
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        put(END);
+        log.info("Upload stream {} received {} bytes", id, total);
+        return total;
+    }
+
+    /**
+     * Ends the stream with an error; the reader throws it on its next read.
+     */
+    public void fail(IOException cause) {
+        failure = cause;
+        blocks.clear();
+        blocks.offer(FAILED);
+    }
+
+    /**
+     * Returns the next block of the body, waiting up to the idle timeout for it.
+     *
+     * @return {@code null} at the end of the body
+     */
+    byte[] take() throws IOException {
+        byte[] block;
+        try {
+            block = blocks.poll(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for upload stream " + id);
+        }
+        if (block == null) {
+            throw new IOException("No data received on upload stream " + id + " for " + idleTimeout.toSeconds() + "s");
+        }
+        if (block == FAILED) {
+            throw failure;
+        }
+        return block == END ? null : block;
+    }
+
+    /**
+     * Called when the job no longer reads the stream; a blocked upload then fails instead
+     * of waiting forever.
+     */
+    void release() {
+        released = true;
+        blocks.clear();
+    }
+
+    private void put(byte[] block) throws IOException {
+        try {
+            while (!blocks.offer(block, 1, TimeUnit.SECONDS)) {
+                if (released) {
+                    throw new IOException("Ingest job stopped reading upload stream " + id);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending upload stream " + id);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open {@link IngestStream}s by id. The id travels to the job as the {@code streamId}
+ * job parameter; the job listener releases the stream when the job ends.
+ */
+@Component
+@Slf4j
+public class IngestStreamRegistry {
+
+    private final int capacityBlocks;
+    private final Duration idleTimeout;
+    private final Map<String, IngestStream> streams = new ConcurrentHashMap<>();
+
+    public IngestStreamRegistry(
+            @Value("${batch.ingest.stream.buffer-blocks:64}") int capacityBlocks,
+            @Value("${batch.ingest.stream.idle-timeout:60s}") Duration idleTimeout) {
+        this.capacityBlocks = capacityBlocks;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public IngestStream create() {
+        IngestStream stream = new IngestStream(UUID.randomUUID().toString(), capacityBlocks, idleTimeout);
+        streams.put(stream.getId(), stream);
+        log.info("Opened upload stream {}", stream.getId());
+        return stream;
+    }
+
+    public boolean isOpen(String streamId) {
+        return streams.containsKey(streamId);
+    }
+
+    public SheetRowSource openRowSource(String streamId) {
+        IngestStream stream = streams.get(streamId);
+        if (stream == null) {
+            throw new ExcelReadingException("Upload stream " + streamId + " is not open");
+        }
+        return new StreamingCsvRowSource(stream);
+    }
+
+    public void release(String streamId) {
+        IngestStream stream = streams.remove(streamId);
+        if (stream != null) {
+            stream.release();
+            log.info("Released upload stream {}", streamId);
+        }
+    }
+}
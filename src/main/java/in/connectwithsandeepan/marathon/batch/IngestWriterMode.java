@@ -0,0 +1,15 @@
+package in.connectwithsandeepan.marathon.batch;
+
+/**
+ * How processed results are written to the database.
+ */
+public enum IngestWriterMode {
+    /**
+     * Batched multi-row JDBC inserts with pre-allocated ids.
+     */
+    JDBC,
+    /**
+     * {@code ResultRepository.saveAll} through the persistence context.
+     */
+    JPA
+}
@@ -0,0 +1,39 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads CSV rows from an {@link InputStream}, such as a compressed upload being inflated,
+ * one block at a time. The heap buffer only holds the unread tail of the previous block
+ * plus the next block.
+ */
+public class InputStreamCsvRowSource extends CsvRowSource {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    public InputStreamCsvRowSource(InputStream input) {
+        super(ByteBuffer.allocate(2 * BLOCK_SIZE).flip());
+        this.input = input;
+    }
+
+    @Override
+    protected boolean refill() throws IOException {
+        int read = input.readNBytes(block, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        append(block, read);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        input.close();
+    }
+}
@@ -0,0 +1,58 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import java.util.List;
+
+/**
+ * Counts of an upload job as pushed to progress subscribers. Built from the step
+ * executions a {@link JobExecution} already holds, so a running job's progress costs
+ * no database access.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobProgress(
+        Long jobId,
+        String status,
+        long recordsRead,
+        long recordsWritten,
+        long recordsSkipped,
+        long progressPercentage,
+        Integer queuePosition) {
+
+    static final String INGEST_STEP = "processResultsStep";
+    static final String PIPELINED_INGEST_STEP = "pipelinedProcessResultsStep";
+
+    public static JobProgress of(JobExecution jobExecution) {
+        List<StepExecution> steps = ingestSteps(jobExecution);
+        long read = steps.stream().mapToLong(StepExecution::getReadCount).sum();
+        long written = steps.stream().mapToLong(StepExecution::getWriteCount).sum();
+        long skipped = steps.stream().mapToLong(StepExecution::getSkipCount).sum();
+        long filtered = steps.stream().mapToLong(StepExecution::getFilterCount).sum();
+        long progress = read > 0 ? Math.round((double) (written + skipped + filtered) / read * 100.0) : 0;
+        return new JobProgress(jobExecution.getId(), jobExecution.getStatus().name(), read, written, skipped, progress, null);
+    }
+
+    public static JobProgress queued(Long jobId, int queuePosition) {
+        return new JobProgress(jobId, BatchStatus.STARTING.name(), 0, 0, 0, 0, queuePosition);
+    }
+
+    /**
+     * Returns the step executions that carry the ingest counts: the worker steps when the
+     * job ran partitioned, otherwise the single chunk step, simple or pipelined.
+     */
+    public static List<StepExecution> ingestSteps(JobExecution jobExecution) {
+        List<StepExecution> partitions = jobExecution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().startsWith(INGEST_STEP + ":"))
+                .toList();
+        if (!partitions.isEmpty()) {
+            return partitions;
+        }
+        return jobExecution.getStepExecutions().stream()
+                .filter(step -> INGEST_STEP.equals(step.getStepName())
+                        || PIPELINED_INGEST_STEP.equals(step.getStepName()))
+                .toList();
+    }
+}
@@ -0,0 +1,196 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the progress of running upload jobs to Server-Sent Event subscribers. The job
+ * and chunk callbacks only note which job changed; a single ticker sends each watched
+ * job's latest {@link JobProgress} at most once per {@code interval}, built from the
+ * in-memory {@link JobExecution}. However many dashboards watch a job, and however fast
+ * its chunks commit, the database is not read while the job runs.
+ * <p>
+ * A job waiting in {@link IngestJobScheduler}'s queue reports its queue position. A job
+ * that is not running here (finished, or unknown to this instance) is read once from the
+ * repository by the caller and the stream is closed.
+ */
+@Component
+@Slf4j
+public class JobProgressBroadcaster implements JobExecutionListener, ChunkListener {
+
+    private final IngestJobScheduler jobScheduler;
+    private final long timeoutMs;
+    private final Map<Long, JobExecution> running = new ConcurrentHashMap<>();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, JobProgress> lastSent = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JobProgressBroadcaster(
+            IngestJobScheduler jobScheduler,
+            @Value("${batch.ingest.progress.interval:1s}") Duration interval,
+            @Value("${batch.ingest.progress.timeout:30m}") Duration timeout) {
+        this.jobScheduler = jobScheduler;
+        this.timeoutMs = timeout.toMillis();
+        long intervalMs = Math.max(100, interval.toMillis());
+        ticker.scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return whether this instance is running or queueing the job of that event, so its
+     * progress can be followed without reading the job repository
+     */
+    public boolean isTracked(Long jobId, Long eventId) {
+        JobExecution execution = running.get(jobId);
+        if (execution != null) {
+            return eventId.equals(execution.getJobParameters().getLong("eventId"));
+        }
+        return jobScheduler.queueStatus(jobId).map(queue -> eventId.equals(queue.eventId())).orElse(false);
+    }
+
+    /**
+     * Subscribes to a job this instance tracks; sends the current progress right away.
+     */
+    public SseEmitter subscribe(Long jobId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+        emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+        emitter.onError(e -> unsubscribe(jobId, emitter));
+
+        Optional<JobProgress> progress = currentProgress(jobId);
+        if (progress.isPresent()) {
+            send(jobId, emitter, progress.get());
+        } else {
+            // finished between the caller's check and the subscription; a reconnecting
+            // client gets the stored result
+            unsubscribe(jobId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends {@code progress} to a new emitter and closes it, for jobs not tracked here.
+     */
+    public SseEmitter snapshot(JobProgress progress) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        running.put(jobExecution.getId(), jobExecution);
+        changed.add(jobExecution.getId());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        changed.add(context.getStepContext().getStepExecution().getJobExecutionId());
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        Long jobId = jobExecution.getId();
+        running.remove(jobId);
+        changed.remove(jobId);
+        lastSent.remove(jobId);
+        List<SseEmitter> emitters = subscribers.remove(jobId);
+        if (emitters != null) {
+            JobProgress progress = JobProgress.of(jobExecution);
+            for (SseEmitter emitter : emitters) {
+                send(jobId, emitter, progress);
+                emitter.complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+
+    private void tick() {
+        try {
+            for (Map.Entry<Long, List<SseEmitter>> watched : subscribers.entrySet()) {
+                Long jobId = watched.getKey();
+                boolean jobChanged = changed.remove(jobId);
+                if (!jobChanged && running.containsKey(jobId)) {
+                    continue;
+                }
+                Optional<JobProgress> progress = currentProgress(jobId);
+                if (progress.isEmpty() || progress.get().equals(lastSent.get(jobId))) {
+                    continue;
+                }
+                lastSent.put(jobId, progress.get());
+                for (SseEmitter emitter : watched.getValue()) {
+                    send(jobId, emitter, progress.get());
+                }
+            }
+            // nobody watches these, the next subscriber gets a fresh snapshot anyway
+            changed.retainAll(subscribers.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Job progress update failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private Optional<JobProgress> currentProgress(Long jobId) {
+        JobExecution execution = running.get(jobId);
+        if (execution != null) {
+            return Optional.of(JobProgress.of(execution));
+        }
+        return jobScheduler.queueStatus(jobId).map(queue -> JobProgress.queued(jobId, queue.position()));
+    }
+
+    private void send(Long jobId, SseEmitter emitter, JobProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away; the emitter callbacks drop it
+            log.debug("Dropping progress subscriber of job {}: {}", jobId, e.getMessage());
+            unsubscribe(jobId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (!subscribers.containsKey(jobId)) {
+            lastSent.remove(jobId);
+        }
+    }
+}
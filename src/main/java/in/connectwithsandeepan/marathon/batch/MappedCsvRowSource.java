@@ -0,0 +1,58 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a CSV results file through a read-only memory mapping of the whole file, so
+ * rows are decoded from the page cache without copying the file into the heap. As the
+ * whole file is mapped, reading can continue from any row start found earlier with
+ * {@link #getNextRowOffset()}.
+ */
+public class MappedCsvRowSource extends CsvRowSource {
+
+    public MappedCsvRowSource(Path file) throws IOException {
+        super(map(file));
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + size + " bytes");
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * @return byte offset in the file at which the row after the current one starts
+     */
+    public long getNextRowOffset() {
+        return buffer.position();
+    }
+
+    /**
+     * @return zero based line on which the row after the current one starts
+     */
+    public int getNextRowLine() {
+        return getNextLineNumber();
+    }
+
+    /**
+     * Continues reading at a row start returned by {@link #getNextRowOffset()} and
+     * {@link #getNextRowLine()} for the same file, so row numbers stay those of the file.
+     */
+    public void seek(long offset, int line) {
+        resumeAt(Math.toIntExact(offset), line);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+}
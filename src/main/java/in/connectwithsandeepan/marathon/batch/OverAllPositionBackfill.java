@@ -0,0 +1,68 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.entity.Result;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in {@code result.over_all_position} for results stored before the column existed,
+ * which Hibernate adds empty. Until then those results sort as unranked on the results
+ * pages. Runs once at startup, on the batch pool, in batches of {@link #BATCH_SIZE} rows
+ * walked by id; the position is computed with {@link Result#positionOf}, as on ingest.
+ * <p>
+ * A result whose rank is not a position (DNF, blank) stays empty, so every start reads
+ * those again; that costs one pass over the unranked results and writes nothing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OverAllPositionBackfill implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 1000;
+    static final String SELECT_UNPOSITIONED = "SELECT id, over_all_rank FROM result " +
+            "WHERE over_all_position IS NULL AND over_all_rank IS NOT NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+    // the rank is compared again in case an upload changed the row since it was read
+    static final String UPDATE_POSITION = "UPDATE result SET over_all_position = ? " +
+            "WHERE id = ? AND over_all_rank = ? AND over_all_position IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long lastId = 0;
+        int updated = 0;
+        List<UnpositionedResult> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_UNPOSITIONED,
+                    (rs, rowNum) -> new UnpositionedResult(rs.getLong(1), rs.getString(2)), lastId);
+            List<Object[]> positions = new ArrayList<>();
+            for (UnpositionedResult result : batch) {
+                Integer position = Result.positionOf(result.overAllRank());
+                if (position != null) {
+                    positions.add(new Object[]{position, result.id(), result.overAllRank()});
+                }
+                lastId = result.id();
+            }
+            if (!positions.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_POSITION, positions);
+                updated += positions.size();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (updated > 0) {
+            log.info("Backfilled the overall position of {} results in {} ms",
+                    updated, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private record UnpositionedResult(long id, String overAllRank) {
+    }
+}
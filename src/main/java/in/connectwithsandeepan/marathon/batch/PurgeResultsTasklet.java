@@ -0,0 +1,98 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * First step of a {@link IngestMode#REPLACE} upload: deletes the event's existing results
+ * and their checkpoints. Running it as a step rather than before the launch means a
+ * restarted job skips it once it has completed, so rows committed by the failed run are
+ * kept. Does nothing for a delta upload.
+ * <p>
+ * A {@link IngestMode#STAGED} upload keeps the stored results; it only clears the rows
+ * that earlier staged uploads of the event left behind when they failed. Those uploads
+ * are marked abandoned, since restarting them would swap in a partial file.
+ * <p>
+ * Reads and deletes with the batch pool's {@link JdbcTemplate}, so the deletes are part
+ * of the step transaction.
+ */
+@Component
+@StepScope
+@Slf4j
+public class PurgeResultsTasklet implements Tasklet {
+
+    static final String DELETE_CHECKPOINTS =
+            "DELETE FROM checkpoint WHERE result_id IN (SELECT id FROM result WHERE event_id = ?)";
+    static final String DELETE_RESULTS = "DELETE FROM result WHERE event_id = ?";
+    static final String SELECT_OTHER_STAGING_INSTANCES =
+            "SELECT DISTINCT job_instance_id FROM result_staging WHERE event_id = ? AND job_instance_id <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final Long eventId;
+    private final IngestMode mode;
+
+    public PurgeResultsTasklet(
+            JdbcTemplate jdbcTemplate,
+            JobExplorer jobExplorer,
+            JobRepository jobRepository,
+            @Value("#{jobParameters['eventId']}") Long eventId,
+            @Value("#{jobParameters['mode']}") String mode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.eventId = eventId;
+        this.mode = IngestMode.fromParameter(mode);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        if (mode == IngestMode.STAGED) {
+            clearEarlierStagedUploads(chunkContext.getStepContext().getStepExecution().getJobExecution().getJobId());
+            return RepeatStatus.FINISHED;
+        }
+        if (mode != IngestMode.REPLACE) {
+            return RepeatStatus.FINISHED;
+        }
+
+        jdbcTemplate.update(DELETE_CHECKPOINTS, eventId);
+        int existingCount = jdbcTemplate.update(DELETE_RESULTS, eventId);
+
+        contribution.incrementWriteCount(existingCount);
+        log.info("Deleted {} existing results of event {}", existingCount, eventId);
+        return RepeatStatus.FINISHED;
+    }
+
+    private void clearEarlierStagedUploads(Long jobInstanceId) {
+        for (Long otherInstanceId : jdbcTemplate.queryForList(
+                SELECT_OTHER_STAGING_INSTANCES, Long.class, eventId, jobInstanceId)) {
+            JobInstance instance = jobExplorer.getJobInstance(otherInstanceId);
+            JobExecution lastExecution = instance != null ? jobExplorer.getLastJobExecution(instance) : null;
+            if (lastExecution != null && lastExecution.isRunning()) {
+                log.warn("Keeping rows staged by job instance {} of event {}, it is still running", otherInstanceId, eventId);
+                continue;
+            }
+            if (lastExecution != null
+                    && (lastExecution.getStatus() == BatchStatus.FAILED || lastExecution.getStatus() == BatchStatus.STOPPED)) {
+                lastExecution.setStatus(BatchStatus.ABANDONED);
+                jobRepository.update(lastExecution);
+            }
+            jdbcTemplate.update(SwapStagedResultsTasklet.DELETE_STAGED_CHECKPOINTS, otherInstanceId);
+            jdbcTemplate.update(SwapStagedResultsTasklet.DELETE_STAGED_RESULTS, otherInstanceId);
+            log.info("Cleared rows staged by job instance {} of event {}", otherInstanceId, eventId);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads items from a delegate on a background thread into a bounded queue, so parsing
+ * the next rows overlaps with processing and writing the current chunk. The producer
+ * blocks when the queue is full, which keeps at most {@code capacity} items in memory.
+ * <p>
+ * Exceptions thrown by the delegate are handed to the step in the position they occurred,
+ * and the producer carries on with the next item, just as the step would by calling
+ * {@code read()} again after a skipped read error.
+ * <p>
+ * The delegate runs ahead of the step, so its own position must not be saved. Instead
+ * this reader saves the number of items the step consumed under {@code countKey}, which
+ * must be the key under which the delegate keeps its restart position as an item count.
+ * On restart the delegate is opened with that context and resumes from there.
+ */
+@Slf4j
+public class ReadAheadItemReader<T> implements ItemStreamReader<T> {
+
+    private static final Object END = new Object();
+
+    private final ItemReader<T> delegate;
+    private final StepExecution stepExecution;
+    private final String countKey;
+    private final BlockingQueue<Object> queue;
+
+    private Thread producer;
+    private volatile boolean closed;
+    private boolean exhausted;
+    private int consumed;
+
+    public ReadAheadItemReader(ItemReader<T> delegate, StepExecution stepExecution, String countKey, int capacity) {
+        this.delegate = delegate;
+        this.stepExecution = stepExecution;
+        this.countKey = countKey;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        closed = false;
+        exhausted = false;
+        consumed = executionContext.getInt(countKey, 0);
+        if (delegate instanceof ItemStream stream) {
+            stream.open(executionContext);
+        }
+        producer = new Thread(this::produce, "ingest-read-ahead-" + stepExecution.getId());
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        Object next = queue.take();
+        if (next == END) {
+            exhausted = true;
+            return null;
+        }
+        consumed++;
+        if (next instanceof ReadFailure failure) {
+            throw failure.exception();
+        }
+        return (T) next;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putInt(countKey, consumed);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        closed = true;
+        if (producer != null) {
+            producer.interrupt();
+            try {
+                producer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            producer = null;
+        }
+        queue.clear();
+        if (delegate instanceof ItemStream stream) {
+            stream.close();
+        }
+    }
+
+    private void produce() {
+        // the delegate is step scoped, so it needs the step context on this thread too
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            while (!closed) {
+                Object next;
+                try {
+                    T item = delegate.read();
+                    next = item != null ? item : END;
+                } catch (Exception e) {
+                    next = new ReadFailure(e);
+                }
+                queue.put(next);
+                if (next == END) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("Read-ahead for step execution {} stopped", stepExecution.getId());
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    private record ReadFailure(Exception exception) {
+    }
+}
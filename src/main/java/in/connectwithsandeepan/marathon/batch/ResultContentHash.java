@@ -0,0 +1,61 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.entity.Checkpoint;
+import in.connectwithsandeepan.marathon.entity.Result;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 64-bit content hash of a result row: every stored column except the ids, plus the
+ * checkpoint times. Two rows with the same hash are treated as unchanged by delta uploads.
+ * <p>
+ * An instance reuses its digest and buffer, so hashing a chunk of rows through one
+ * instance avoids a provider lookup per row. Instances are not thread safe.
+ */
+public final class ResultContentHash {
+
+    private static final char SEPARATOR = '\u001F';
+
+    private final MessageDigest digest = sha256();
+    private final StringBuilder content = new StringBuilder(128);
+
+    public static long of(Result result) {
+        return new ResultContentHash().hash(result);
+    }
+
+    public long hash(Result result) {
+        content.setLength(0);
+        append(content, result.getBibNumber());
+        append(content, result.getParticipantName());
+        append(content, result.getGender());
+        append(content, result.getAgeCategory());
+        append(content, result.getOverAllRank());
+        append(content, result.getGenderRank());
+        append(content, result.getAgeCategoryRank());
+        append(content, result.getChipTime());
+        append(content, result.getGunTime());
+        append(content, result.getCategory() != null ? result.getCategory().getId() : null);
+        for (Checkpoint checkpoint : result.getCheckpointTimes()) {
+            content.append(checkpoint.getCheckpointNumber()).append('=');
+            append(content, checkpoint.getTime());
+        }
+
+        byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(hash).getLong();
+    }
+
+    private static void append(StringBuilder content, Object value) {
+        content.append(value).append(SEPARATOR);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
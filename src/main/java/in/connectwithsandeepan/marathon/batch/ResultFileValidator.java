@@ -0,0 +1,185 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.ResultFileValidationReportDto;
+import in.connectwithsandeepan.marathon.dto.ResultFileValidationReportDto.RowError;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.exception.DuplicateBibException;
+import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
+import in.connectwithsandeepan.marathon.exception.ResultValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Dry run of an upload: finds the rows the ingest job would reject without writing
+ * anything. One thread reads the sheet, which file formats only allow in order, and
+ * copies each row's cells; blocks of rows are then decoded, validated and matched
+ * against the event's categories in parallel on the ingest processor executor. Bibs are
+ * checked for duplicates afterwards in row order. As in the job, the first row with a
+ * bib keeps it and each later row with that bib is reported, naming the first one.
+ * <p>
+ * All checks go through {@link ResultRowValidator}, like the job's processor. Stored
+ * results never make a bib a duplicate here: a replace upload deletes them first and a
+ * delta upload matches rows to them by bib. As in the job, only duplicate bibs are
+ * skipped; any other bad row fails the ingest step.
+ */
+@Service
+@Slf4j
+public class ResultFileValidator {
+
+    private static final int BLOCK_SIZE = 1000;
+
+    private final SheetRowSourceFactory rowSourceFactory;
+    private final EventSnapshotRegistry eventSnapshotRegistry;
+    private final ResultRowValidator rowValidator;
+    private final TaskExecutor ingestProcessorExecutor;
+    private final int maxErrors;
+
+    public ResultFileValidator(
+            SheetRowSourceFactory rowSourceFactory,
+            EventSnapshotRegistry eventSnapshotRegistry,
+            ResultRowValidator rowValidator,
+            TaskExecutor ingestProcessorExecutor,
+            @Value("${batch.ingest.validation.max-errors:1000}") int maxErrors) {
+        this.rowSourceFactory = rowSourceFactory;
+        this.eventSnapshotRegistry = eventSnapshotRegistry;
+        this.rowValidator = rowValidator;
+        this.ingestProcessorExecutor = ingestProcessorExecutor;
+        this.maxErrors = maxErrors;
+    }
+
+    public ResultFileValidationReportDto validate(Long eventId, String filePath) {
+        long start = System.nanoTime();
+        EventSnapshot snapshot = eventSnapshotRegistry.load(eventId);
+
+        List<CompletableFuture<List<RowOutcome>>> blocks = new ArrayList<>();
+        try (SheetRowSource rows = rowSourceFactory.open(filePath)) {
+            if (rows.next()) {
+                ResultRowCodec codec = ResultRowCodec.fromHeader(rows);
+                List<CapturedRow> block = new ArrayList<>(BLOCK_SIZE);
+                while (rows.next()) {
+                    block.add(CapturedRow.of(rows));
+                    if (block.size() == BLOCK_SIZE) {
+                        blocks.add(submit(block, codec, snapshot));
+                        block = new ArrayList<>(BLOCK_SIZE);
+                    }
+                }
+                if (!block.isEmpty()) {
+                    blocks.add(submit(block, codec, snapshot));
+                }
+            }
+        } catch (IOException e) {
+            throw new ExcelReadingException("Could not read " + filePath + ": " + e.getMessage());
+        }
+
+        BibIndex bibIndex = new BibIndex(List.of());
+        List<RowError> errors = new ArrayList<>();
+        long checked = 0;
+        long invalid = 0;
+        long skippable = 0;
+        for (CompletableFuture<List<RowOutcome>> block : blocks) {
+            for (RowOutcome outcome : block.join()) {
+                checked++;
+                String error = outcome.error();
+                boolean skipped = false;
+                if (error == null) {
+                    try {
+                        rowValidator.checkBib(outcome.dto(), bibIndex);
+                    } catch (DuplicateBibException e) {
+                        // the only row error the ingest step skips
+                        error = e.getMessage();
+                        skipped = true;
+                        skippable++;
+                    }
+                }
+                if (error != null) {
+                    invalid++;
+                    if (errors.size() < maxErrors) {
+                        errors.add(new RowError(outcome.row(), outcome.bibNumber(), error, skipped));
+                    }
+                }
+            }
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Validated {} rows of {} for event {} in {} ms: {} invalid", checked, filePath, eventId, durationMs, invalid);
+        boolean jobWouldFail = invalid > skippable || skippable > BatchStepConfiguration.SKIP_LIMIT;
+        return new ResultFileValidationReportDto(checked, checked - invalid, invalid,
+                jobWouldFail, durationMs, invalid > errors.size(), errors);
+    }
+
+    private CompletableFuture<List<RowOutcome>> submit(List<CapturedRow> block, ResultRowCodec codec, EventSnapshot snapshot) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<RowOutcome> outcomes = new ArrayList<>(block.size());
+            for (CapturedRow row : block) {
+                outcomes.add(check(row, codec, snapshot));
+            }
+            return outcomes;
+        }, ingestProcessorExecutor);
+    }
+
+    private RowOutcome check(CapturedRow row, ResultRowCodec codec, EventSnapshot snapshot) {
+        int rowNumber = row.getRowNumber() + 1;
+        ResultRequestDTO dto;
+        try {
+            dto = codec.decode(row);
+        } catch (Exception e) {
+            return new RowOutcome(rowNumber, codec.bibNumber(row), null, "Error processing row " + rowNumber + ": " + e.getMessage());
+        }
+        try {
+            rowValidator.validateDto(dto);
+            rowValidator.checkCategory(dto, snapshot);
+            return new RowOutcome(rowNumber, dto.getBibNumber(), dto, null);
+        } catch (ResultValidationException e) {
+            return new RowOutcome(rowNumber, dto.getBibNumber(), null, e.getMessage());
+        }
+    }
+
+    private record RowOutcome(int row, String bibNumber, ResultRequestDTO dto, String error) {
+    }
+
+    /**
+     * The cells of one row, copied so the row can be decoded on another thread after the
+     * source has moved on.
+     */
+    private record CapturedRow(int rowNumber, String[] cells) implements SheetRowSource {
+
+        static CapturedRow of(SheetRowSource source) {
+            String[] cells = new String[Math.max(0, source.getCellCount())];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = source.getCell(i);
+            }
+            return new CapturedRow(source.getRowNumber(), cells);
+        }
+
+        @Override
+        public boolean next() {
+            return false;
+        }
+
+        @Override
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        @Override
+        public int getCellCount() {
+            return cells.length;
+        }
+
+        @Override
+        public String getCell(int column) {
+            return column >= 0 && column < cells.length ? cells[column] : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,127 +1,133 @@
 package in.connectwithsandeepan.marathon.batch;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
 import in.connectwithsandeepan.marathon.entity.Checkpoint;
-import in.connectwithsandeepan.marathon.entity.Event;
-import in.connectwithsandeepan.marathon.entity.EventCategory;
 import in.connectwithsandeepan.marathon.entity.Result;
-import in.connectwithsandeepan.marathon.exception.ProcessorInitializationException;
-import in.connectwithsandeepan.marathon.exception.ResultValidationException;
-import in.connectwithsandeepan.marathon.repo.ResultRepository;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.Chunk;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+/**
+ * Validates result rows and converts them to entities. The simple and partitioned steps
+ * prepare a whole chunk in one pass through {@link #prepareChunk}, reusing one hasher for
+ * it; the pipelined step calls {@link #process} for single rows on several threads.
+ */
 @StepScope
 @Component
 @Slf4j
-public class ResultItemProcessor implements ItemProcessor<ResultRequestDTO, Result> {
-    private final Validator validator;
-    private final ResultRepository resultRepository;
+public class ResultItemProcessor implements ChunkPreparingItemProcessor<ResultRequestDTO, Result> {
 
-    private final ObjectMapper objectMapper;
+    private static final Object UNCHANGED = new Object();
+
+    private final ResultRowValidator rowValidator;
+    private final BibIndexRegistry bibIndexRegistry;
+    private final EventSnapshotRegistry eventSnapshotRegistry;
 
 
     private final Long eventId;
-    private final String eventDataJson;
-    private final String categoriesDataJson;
+    private final Long jobExecutionId;
+    private final IngestMode mode;
 
-    private Event cachedEvent;
-    private Map<String, EventCategory> cachedCategoryMap;
-    private Long currentEventId;
+    private volatile EventSnapshot snapshot;
+    private BibIndex bibIndex;
+    private Map<ResultRequestDTO, Object> prepared = new IdentityHashMap<>();
 
     public ResultItemProcessor(
-            Validator validator,
-            ResultRepository resultRepository,
-            ObjectMapper objectMapper,
+            ResultRowValidator rowValidator,
+            BibIndexRegistry bibIndexRegistry,
+            EventSnapshotRegistry eventSnapshotRegistry,
             @Value("#{jobParameters['eventId']}") Long eventId,
-            @Value("#{jobParameters['eventData']}") String eventDataJson,
-            @Value("#{jobParameters['categoriesData']}") String categoriesDataJson) {
-        this.validator = validator;
-        this.resultRepository = resultRepository;
+            @Value("#{stepExecution.jobExecutionId}") Long jobExecutionId,
+            @Value("#{jobParameters['mode']}") String mode) {
+        this.rowValidator = rowValidator;
+        this.bibIndexRegistry = bibIndexRegistry;
+        this.eventSnapshotRegistry = eventSnapshotRegistry;
         this.eventId = eventId;
-        this.eventDataJson = eventDataJson;
-        this.categoriesDataJson = categoriesDataJson;
-        this.objectMapper = objectMapper;
+        this.jobExecutionId = jobExecutionId;
+        this.mode = IngestMode.fromParameter(mode);
     }
 
     private void ensureObjectsInitialized() {
-        if (currentEventId == null || !currentEventId.equals(eventId)) {
-
-            try {
-                log.info("Converting JSON data to objects for event: {} (previous: {})", eventId, currentEventId);
-
-                cachedEvent = objectMapper.readValue(eventDataJson, Event.class);
-
-                TypeReference<List<EventCategory>> typeRef = new TypeReference<List<EventCategory>>() {};
-                List<EventCategory> categories = objectMapper.readValue(categoriesDataJson, typeRef);
-
-                cachedCategoryMap = categories.stream()
-                        .collect(Collectors.toMap(EventCategory::getCategoryName, Function.identity()));
+        if (snapshot != null) {
+            return;
+        }
+        // the pipelined step calls process() from several threads
+        synchronized (this) {
+            if (snapshot != null) {
+                return;
+            }
+            EventSnapshot loaded = eventSnapshotRegistry.getSnapshot(jobExecutionId, eventId);
+            bibIndex = bibIndexRegistry.getIndex(jobExecutionId, eventId, mode);
+            snapshot = loaded;
 
-                currentEventId = eventId;
+            log.info("Processor initialised - Event: {}, Categories: {}",
+                    loaded.getEvent().getEventName(), loaded.getCategoryCount());
+        }
+    }
 
-                log.info("Successfully converted JSON to objects - Event: {}, Categories: {}",
-                        cachedEvent.getEventName(), cachedCategoryMap.size());
 
-            } catch (JsonProcessingException e) {
-                log.error("Failed to convert JSON to objects for event {}: {}", eventId, e.getMessage(), e);
-                throw new ProcessorInitializationException("Failed to initialize processor for event " + eventId);
+    /**
+     * Validates and converts every row of the chunk in order and keeps each row's
+     * outcome: its entity, {@code UNCHANGED}, or the exception it raised.
+     */
+    @Override
+    public void prepareChunk(Chunk<? extends ResultRequestDTO> chunk) {
+        ResultContentHash hasher = new ResultContentHash();
+        Map<ResultRequestDTO, Object> outcomes = new IdentityHashMap<>(chunk.size());
+        for (ResultRequestDTO dto : chunk) {
+            Object outcome;
+            try {
+                Result result = toResult(dto, hasher);
+                outcome = result != null ? result : UNCHANGED;
+            } catch (Exception e) {
+                outcome = e;
             }
+            outcomes.put(dto, outcome);
         }
+        prepared = outcomes;
+        log.debug("Prepared {} rows", chunk.size());
     }
 
-
     @Override
     public Result process(ResultRequestDTO dto) throws Exception {
-        log.debug("Processing result for bib number: {}", dto.getBibNumber());
+        // each prepared outcome is handed out once, a row processed again is converted afresh
+        Object outcome = prepared.isEmpty() ? null : prepared.remove(dto);
+        if (outcome == null) {
+            return toResult(dto, new ResultContentHash());
+        }
+        if (outcome instanceof Exception e) {
+            throw e;
+        }
+        return outcome == UNCHANGED ? null : (Result) outcome;
+    }
 
+    private Result toResult(ResultRequestDTO dto, ResultContentHash hasher) {
         ensureObjectsInitialized();
-        validateDto(dto);
-        checkBibAndCategory(dto);
+        rowValidator.validateDto(dto);
+        rowValidator.checkBibAndCategory(dto, snapshot, bibIndex);
         Result result = convertToEntity(dto);
+        result.setContentHash(hasher.hash(result));
 
-        log.debug("Successfully processed result for bib number: {}", dto.getBibNumber());
-        return result;
-    }
-
-
-    private void validateDto(ResultRequestDTO dto) {
-        Set<ConstraintViolation<ResultRequestDTO>> violations = validator.validate(dto);
-
-        if (!violations.isEmpty()) {
-            String errors = violations.stream()
-                    .map(ConstraintViolation::getMessage)
-                    .collect(Collectors.joining(", "));
-            throw new ResultValidationException("Validation failed for bib " + dto.getBibNumber() + ": " + errors);
+        if (mode == IngestMode.DELTA) {
+            StoredResult stored = bibIndex.getStored(dto.getBibNumber());
+            if (stored != null) {
+                if (result.getContentHash().equals(stored.contentHash())) {
+                    return null; // unchanged, not written
+                }
+                result.setId(stored.id()); // written as an update
+            }
         }
+        return result;
     }
 
-    private void checkBibAndCategory(ResultRequestDTO dto) {
-        if (resultRepository.existsByEvent_IdAndBibNumber(eventId, dto.getBibNumber())) {
-            throw new ResultValidationException("Duplicate bib number: " + dto.getBibNumber());
-        }
-        if (!cachedCategoryMap.containsKey(dto.getRaceCategory())) {
-            throw new ResultValidationException("Invalid category: " + dto.getRaceCategory());
-        }
-
-
-    }
 
     private Result convertToEntity(ResultRequestDTO dto) {
         Result result = new Result();
@@ -136,13 +142,13 @@ public class ResultItemProcessor implements ItemProcessor<ResultRequestDTO, Resu
         result.setChipTime(dto.getChipTime());
         result.setGunTime(dto.getGunTime());
 
-        result.setEvent(cachedEvent);
-        result.setCategory(cachedCategoryMap.get(dto.getRaceCategory()));
+        result.setEvent(snapshot.getEvent());
+        result.setCategory(snapshot.getCategory(dto.getRaceCategory()));
 
 
 
         if (dto.getCheckpointTimes() != null && !dto.getCheckpointTimes().isEmpty()) {
-            List<Checkpoint> checkpoints = new ArrayList<>();
+            List<Checkpoint> checkpoints = new ArrayList<>(dto.getCheckpointTimes().size());
 
             for (CheckpointRequestDTO cpDto : dto.getCheckpointTimes()) {
                 if (cpDto.getTime() != null) {
@@ -1,59 +1,92 @@
 package in.connectwithsandeepan.marathon.batch;
 
-import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
 import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.NonTransientResourceException;
 import org.springframework.batch.item.ParseException;
 import org.springframework.batch.item.UnexpectedInputException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
+/**
+ * Reads the uploaded sheet (or upload stream) row by row. The number of rows of its
+ * range handed to the step is saved under {@link #ROWS_CONSUMED} at every commit, so a
+ * restarted step skips the rows that were already committed.
+ */
 @Component
 @StepScope
 @Slf4j
-public class ResultItemReader implements ItemReader<ResultRequestDTO> {
+public class ResultItemReader implements ItemStreamReader<ResultRequestDTO> {
+
+    /**
+     * Rows of this reader's range already read, including rows that failed to map.
+     */
+    public static final String ROWS_CONSUMED = "resultItemReader.rowsConsumed";
 
     private final String filePath;
     private final Long eventId;
-
-    private Workbook workbook;
-    private Iterator<Row> rowIterator;
+    private final String streamId;
+    private final SheetRowSourceFactory rowSourceFactory;
+    private final IngestStreamRegistry streamRegistry;
+    private final Integer fromRow;
+    private final Integer toRow;
+    private final Long fromOffset;
+    private final Integer fromLine;
+
+    private SheetRowSource rowSource;
+    private ResultRowCodec codec;
     private boolean initialized = false;
-
-    private static final int COL_BIB_NUMBER = 0;
-    private static final int COL_PARTICIPANT_NAME = 1;
-    private static final int COL_GENDER = 2;
-    private static final int COL_RACE_CATEGORY = 3;
-    private static final int COL_AGE_CATEGORY = 4;
-    private static final int COL_OVERALL_RANK = 5;
-    private static final int COL_GENDER_RANK = 6;
-    private static final int COL_AGE_CATEGORY_RANK = 7;
-    private static final int COL_CHIP_TIME = 8;
-    private static final int COL_GUN_TIME = 9;
-    private static final int CHECKPOINT_START_COL = 10;
+    private int dataRowIndex;
+    private int rowsConsumed;
+    private int resumeAfter;
+    private long rowsRead;
+    private long startNanos;
 
     public ResultItemReader(
             @Value("#{jobParameters['filePath']}") String filePath,
-            @Value("#{jobParameters['eventId']}") Long eventId) {
+            @Value("#{jobParameters['eventId']}") Long eventId,
+            @Value("#{stepExecutionContext['fromRow']}") Integer fromRow,
+            @Value("#{stepExecutionContext['toRow']}") Integer toRow,
+            @Value("#{stepExecutionContext['fromOffset']}") Long fromOffset,
+            @Value("#{stepExecutionContext['fromLine']}") Integer fromLine,
+            @Value("#{jobParameters['streamId']}") String streamId,
+            SheetRowSourceFactory rowSourceFactory,
+            IngestStreamRegistry streamRegistry) {
         this.filePath = filePath;
         this.eventId = eventId;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+        this.fromOffset = fromOffset;
+        this.fromLine = fromLine;
+        this.streamId = streamId;
+        this.rowSourceFactory = rowSourceFactory;
+        this.streamRegistry = streamRegistry;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        resumeAfter = executionContext.getInt(ROWS_CONSUMED, 0);
+        rowsConsumed = resumeAfter;
+        if (resumeAfter > 0) {
+            log.info("Restart: skipping {} rows already committed for event {}", resumeAfter, eventId);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putInt(ROWS_CONSUMED, rowsConsumed);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        closeRowSource();
     }
 
     @Override
@@ -62,116 +95,74 @@ public class ResultItemReader implements ItemReader<ResultRequestDTO> {
             initializeReader();
             initialized = true;
         }
-        if (rowIterator != null && rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-            return mapRowToDTO(row);
+        while (rowSource != null && rowSource.next()) {
+            int index = dataRowIndex++;
+            if (fromRow != null && index < fromRow) {
+                continue;
+            }
+            if (toRow != null && index >= toRow) {
+                break;
+            }
+            if (index - (fromRow != null ? fromRow : 0) < resumeAfter) {
+                continue;
+            }
+            rowsConsumed++;
+            rowsRead++;
+            return mapRowToDTO(rowSource);
         }
-        closeWorkbook();
+        closeRowSource();
         return null;
     }
 
 
     private void initializeReader() throws IOException {
-        log.info("Opening Excel file: {} for event: {}", filePath, eventId);
-
-        FileInputStream file = new FileInputStream(filePath);
-        workbook = new XSSFWorkbook(file);
-        Sheet sheet = workbook.getSheetAt(0);
-        rowIterator = sheet.iterator();
-
-        // Skip header row
-        if (rowIterator.hasNext()) {
-            rowIterator.next(); // Skip headers
-            log.info("Skipped header row");
+        if (streamId != null) {
+            log.info("Reading upload stream {} for event: {}", streamId, eventId);
+        } else if (fromRow != null) {
+            log.info("Opening Excel file: {} for event: {} (data rows {} to {})", filePath, eventId, fromRow, toRow);
+        } else {
+            log.info("Opening Excel file: {} for event: {}", filePath, eventId);
         }
-    }
 
+        startNanos = System.nanoTime();
+        // a restarted streaming job reads the audit copy, the stream itself is gone by then
+        rowSource = streamId != null && streamRegistry.isOpen(streamId)
+                ? streamRegistry.openRowSource(streamId)
+                : rowSourceFactory.open(filePath);
 
-    private ResultRequestDTO mapRowToDTO(Row row) {
-        try {
-            ResultRequestDTO dto = new ResultRequestDTO();
-
-            dto.setBibNumber(getCellValueAsString(row.getCell(COL_BIB_NUMBER)));
-            dto.setParticipantName(getCellValueAsString(row.getCell(COL_PARTICIPANT_NAME)));
-            dto.setGender(getCellValueAsString(row.getCell(COL_GENDER)));
-            dto.setRaceCategory(getCellValueAsString(row.getCell(COL_RACE_CATEGORY)));
-            dto.setAgeCategory(getCellValueAsString(row.getCell(COL_AGE_CATEGORY)));
-            dto.setOverAllRank(getCellValueAsString(row.getCell(COL_OVERALL_RANK)));
-            dto.setGenderRank(getCellValueAsString(row.getCell(COL_GENDER_RANK)));
-            dto.setAgeCategoryRank(getCellValueAsString(row.getCell(COL_AGE_CATEGORY_RANK)));
-            dto.setChipTime(parseTime(getCellValueAsString(row.getCell(COL_CHIP_TIME))));
-            dto.setGunTime(parseTime(getCellValueAsString(row.getCell(COL_GUN_TIME))));
-            dto.setCheckpointTimes(mapCheckpoints(row));
-
-            return dto;
-
-        } catch (Exception e) {
-            log.error("Error mapping row {} to DTO: {}", row.getRowNum(), e.getMessage());
-            throw new ExcelReadingException("Error processing row " + (row.getRowNum() + 1) + ": " + e.getMessage());
+        // Bind columns from the header row
+        if (rowSource.next()) {
+            codec = ResultRowCodec.fromHeader(rowSource);
+        }
+        // a partition of a CSV file starts at its first row rather than reading up to it
+        if (fromOffset != null && rowSource instanceof MappedCsvRowSource mapped) {
+            mapped.seek(fromOffset, fromLine);
+            dataRowIndex = fromRow;
         }
     }
 
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return null;
-
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue().trim();
-            case NUMERIC -> String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            default -> "";
-        };
-    }
-
-    private LocalTime parseTime(String timeStr) {
-        if (timeStr == null || timeStr.trim().isEmpty()) {
-            return null;
-        }
 
+    private ResultRequestDTO mapRowToDTO(SheetRowSource row) {
         try {
-            timeStr = timeStr.trim();
-            if (timeStr.matches("\\d{1,2}:\\d{2}:\\d{2}")) {
-                return LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("H:mm:ss"));
-            }
-            if (timeStr.matches("\\d{1,2}:\\d{2}")) {
-                return LocalTime.parse("0:" + timeStr, DateTimeFormatter.ofPattern("H:mm:ss"));
-            }
+            return codec.decode(row);
         } catch (Exception e) {
-            log.warn("Could not parse time: {}", timeStr);
+            log.error("Error mapping row {} to DTO: {}", row.getRowNumber(), e.getMessage());
+            throw new ExcelReadingException("Error processing row " + (row.getRowNumber() + 1) + ": " + e.getMessage());
         }
-        return null;
-    }
-
-    private List<CheckpointRequestDTO> mapCheckpoints(Row row) {
-        List<CheckpointRequestDTO> checkpoints = new ArrayList<>();
-        int lastCellNum = row.getLastCellNum();
-
-        for (int i = CHECKPOINT_START_COL; i < lastCellNum; i++) {
-            String timeValue = getCellValueAsString(row.getCell(i));
-
-            if (timeValue != null && !timeValue.trim().isEmpty()) {
-                LocalTime checkpointTime = parseTime(timeValue);
-
-                if (checkpointTime != null) {
-                    CheckpointRequestDTO checkpoint = new CheckpointRequestDTO();
-                    checkpoint.setCheckpointNumber(i - CHECKPOINT_START_COL + 1); // Sequential checkpoint number
-                    checkpoint.setTime(checkpointTime);
-                    checkpoints.add(checkpoint);
-                }
-            }
-        }
-
-        return checkpoints;
     }
 
 
-    private void closeWorkbook() {
-        if (workbook != null) {
+    private void closeRowSource() {
+        if (rowSource != null) {
             try {
-                workbook.close();
-                log.info("Closed Excel workbook for file: {}", filePath);
+                rowSource.close();
+                long elapsedMs = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+                log.info("Closed Excel file: {} after reading {} rows in {} ms ({} rows/s)",
+                        filePath, rowsRead, elapsedMs, rowsRead * 1000 / elapsedMs);
             } catch (IOException e) {
                 log.warn("Error closing workbook: {}", e.getMessage());
             }
+            rowSource = null;
         }
     }
 }
@@ -10,7 +10,11 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
-
+/**
+ * The {@code batch.ingest.writer=JPA} fallback: saves each chunk through
+ * {@link ResultRepository}. It is the one part of an upload job that runs on the API pool,
+ * in its own JPA transaction rather than the step's.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -19,11 +23,20 @@ public class ResultItemWriter implements ItemWriter<Result> {
 
     @Override
     public void write(Chunk<? extends Result> chunk) throws Exception {
+        if (IngestMode.stagingJobInstanceId() != null) {
+            // the staging tables are written with JDBC on the batch pool, which the
+            // transaction of this writer does not cover
+            throw new IllegalStateException("Staged uploads need batch.ingest.writer=JDBC");
+        }
         List<? extends Result> results = chunk.getItems();
         log.info("Writing {} results to database", results.size());
 
+        // results of a delta upload that already have an id are merged as updates
+        long updates = results.stream().filter(result -> result.getId() != null).count();
         try {
             resultRepository.saveAll(results);
+            IngestCounts.add(IngestCounts.INSERTED, results.size() - updates);
+            IngestCounts.add(IngestCounts.UPDATED, updates);
             log.info("Successfully saved {} results", results.size());
         } catch (Exception e) {
             log.error("Error saving results: {}", e.getMessage());
@@ -0,0 +1,170 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.entity.Checkpoint;
+import in.connectwithsandeepan.marathon.entity.Result;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a whole chunk of results and their checkpoints with JDBC batches, bypassing
+ * the persistence context. Ids come from {@link IdBlockAllocator}, one reservation per
+ * table per chunk. With {@code rewriteBatchedStatements=true} on the batch pool's URL the MySQL
+ * driver sends each insert batch as multi-row INSERT statements.
+ * <p>
+ * Results that already carry an id (changed rows of a delta upload) are updated in
+ * place and get their checkpoints replaced. A {@link IngestMode#STAGED} job inserts into
+ * the staging tables instead, under its job instance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResultJdbcBatchWriter implements ItemWriter<Result> {
+
+    static final String INSERT_RESULT = "INSERT INTO result (id, bib_number, participant_name, gender, age_category, " +
+            "over_all_rank, gender_rank, age_category_rank, chip_time, gun_time, event_id, event_category_id, " +
+            "content_hash, over_all_position) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_RESULT = "UPDATE result SET participant_name = ?, gender = ?, age_category = ?, " +
+            "over_all_rank = ?, gender_rank = ?, age_category_rank = ?, chip_time = ?, gun_time = ?, " +
+            "event_category_id = ?, content_hash = ?, over_all_position = ? WHERE id = ?";
+    static final String INSERT_CHECKPOINT = "INSERT INTO checkpoint (id, checkpoint_number, time, result_id) " +
+            "VALUES (?, ?, ?, ?)";
+    static final String DELETE_CHECKPOINTS = "DELETE FROM checkpoint WHERE result_id = ?";
+    static final String INSERT_STAGED_RESULT = "INSERT INTO result_staging (id, bib_number, participant_name, gender, " +
+            "age_category, over_all_rank, gender_rank, age_category_rank, chip_time, gun_time, event_id, " +
+            "event_category_id, content_hash, over_all_position, job_instance_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String INSERT_STAGED_CHECKPOINT = "INSERT INTO checkpoint_staging (id, checkpoint_number, time, " +
+            "result_id, job_instance_id) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+
+    @Override
+    public void write(Chunk<? extends Result> chunk) throws Exception {
+        long start = System.nanoTime();
+        Long stagingJobInstanceId = IngestMode.stagingJobInstanceId();
+        boolean staged = stagingJobInstanceId != null;
+
+        List<Result> inserts = new ArrayList<>(chunk.size());
+        List<Result> updates = new ArrayList<>();
+        for (Result result : chunk) {
+            (result.getId() == null ? inserts : updates).add(result);
+        }
+
+        int checkpointCount;
+        try {
+            checkpointCount = writeRows(inserts, updates, stagingJobInstanceId);
+        } catch (RuntimeException e) {
+            // the rows are written again, whole or split up, after the rollback; keep them new
+            inserts.forEach(result -> result.setId(null));
+            throw e;
+        }
+
+        IngestCounts.add(IngestCounts.INSERTED, inserts.size());
+        IngestCounts.add(IngestCounts.UPDATED, updates.size());
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("{} {} and updated {} results with {} checkpoints in {} ms ({} results/s)", staged ? "Staged" : "Inserted",
+                inserts.size(), updates.size(), checkpointCount, elapsedMs, chunk.size() * 1000L / elapsedMs);
+    }
+
+    /**
+     * @return the number of checkpoints written
+     */
+    private int writeRows(List<Result> inserts, List<Result> updates, Long stagingJobInstanceId) {
+        boolean staged = stagingJobInstanceId != null;
+        List<Checkpoint> checkpoints = assignIds(inserts, updates);
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(staged ? INSERT_STAGED_RESULT : INSERT_RESULT, inserts, inserts.size(), (ps, result) -> {
+                ps.setLong(1, result.getId());
+                ps.setString(2, result.getBibNumber());
+                ps.setString(3, result.getParticipantName());
+                ps.setString(4, result.getGender());
+                ps.setString(5, result.getAgeCategory());
+                ps.setString(6, result.getOverAllRank());
+                ps.setString(7, result.getGenderRank());
+                ps.setString(8, result.getAgeCategoryRank());
+                ps.setObject(9, result.getChipTime());
+                ps.setObject(10, result.getGunTime());
+                ps.setLong(11, result.getEvent().getId());
+                ps.setLong(12, result.getCategory().getId());
+                ps.setObject(13, result.getContentHash());
+                ps.setObject(14, result.getOverAllPosition());
+                if (staged) {
+                    ps.setLong(15, stagingJobInstanceId);
+                }
+            });
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_RESULT, updates, updates.size(), (ps, result) -> {
+                ps.setString(1, result.getParticipantName());
+                ps.setString(2, result.getGender());
+                ps.setString(3, result.getAgeCategory());
+                ps.setString(4, result.getOverAllRank());
+                ps.setString(5, result.getGenderRank());
+                ps.setString(6, result.getAgeCategoryRank());
+                ps.setObject(7, result.getChipTime());
+                ps.setObject(8, result.getGunTime());
+                ps.setLong(9, result.getCategory().getId());
+                ps.setObject(10, result.getContentHash());
+                ps.setObject(11, result.getOverAllPosition());
+                ps.setLong(12, result.getId());
+            });
+            jdbcTemplate.batchUpdate(DELETE_CHECKPOINTS, updates, updates.size(),
+                    (ps, result) -> ps.setLong(1, result.getId()));
+        }
+
+        if (!checkpoints.isEmpty()) {
+            jdbcTemplate.batchUpdate(staged ? INSERT_STAGED_CHECKPOINT : INSERT_CHECKPOINT, checkpoints, checkpoints.size(), (ps, checkpoint) -> {
+                ps.setLong(1, checkpoint.getId());
+                ps.setInt(2, checkpoint.getCheckpointNumber());
+                ps.setObject(3, checkpoint.getTime());
+                ps.setLong(4, checkpoint.getResult().getId());
+                if (staged) {
+                    ps.setLong(5, stagingJobInstanceId);
+                }
+            });
+        }
+        return checkpoints.size();
+    }
+
+    /**
+     * Gives every new result and every checkpoint of the chunk an id and returns the
+     * checkpoints flattened in insert order.
+     */
+    private List<Checkpoint> assignIds(List<Result> inserts, List<Result> updates) {
+        int checkpointCount = 0;
+        for (Result result : inserts) {
+            checkpointCount += result.getCheckpointTimes().size();
+        }
+        for (Result result : updates) {
+            checkpointCount += result.getCheckpointTimes().size();
+        }
+
+        long nextResultId = inserts.isEmpty() ? 0 : idBlockAllocator.allocate("result_seq", inserts.size());
+        long nextCheckpointId = checkpointCount == 0 ? 0 : idBlockAllocator.allocate("checkpoint_seq", checkpointCount);
+
+        List<Checkpoint> checkpoints = new ArrayList<>(checkpointCount);
+        for (Result result : inserts) {
+            result.setId(nextResultId++);
+        }
+        for (List<Result> results : List.of(inserts, updates)) {
+            for (Result result : results) {
+                for (Checkpoint checkpoint : result.getCheckpointTimes()) {
+                    checkpoint.setId(nextCheckpointId++);
+                    checkpoints.add(checkpoint);
+                }
+            }
+        }
+        return checkpoints;
+    }
+}
@@ -0,0 +1,255 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns sheet rows into {@link ResultRequestDTO}s. The column of every field is
+ * resolved once per file from the header row; files whose header is not recognised
+ * use the fixed template layout. Times are parsed by hand instead of through regular
+ * expressions and {@code DateTimeFormatter}.
+ */
+@Slf4j
+public class ResultRowCodec {
+
+    static final int COL_BIB_NUMBER = 0;
+    static final int COL_PARTICIPANT_NAME = 1;
+    static final int COL_GENDER = 2;
+    static final int COL_RACE_CATEGORY = 3;
+    static final int COL_AGE_CATEGORY = 4;
+    static final int COL_OVERALL_RANK = 5;
+    static final int COL_GENDER_RANK = 6;
+    static final int COL_AGE_CATEGORY_RANK = 7;
+    static final int COL_CHIP_TIME = 8;
+    static final int COL_GUN_TIME = 9;
+    static final int CHECKPOINT_START_COL = 10;
+
+    private static final int UNBOUND = -1;
+
+    private final int bibNumber;
+    private final int participantName;
+    private final int gender;
+    private final int raceCategory;
+    private final int ageCategory;
+    private final int overAllRank;
+    private final int genderRank;
+    private final int ageCategoryRank;
+    private final int chipTime;
+    private final int gunTime;
+    /**
+     * Checkpoint columns in checkpoint order, or {@code null} when every column from
+     * {@link #CHECKPOINT_START_COL} on is a checkpoint.
+     */
+    private final int[] checkpointColumns;
+
+    private ResultRowCodec(int[] fields, int[] checkpointColumns) {
+        this.bibNumber = fields[COL_BIB_NUMBER];
+        this.participantName = fields[COL_PARTICIPANT_NAME];
+        this.gender = fields[COL_GENDER];
+        this.raceCategory = fields[COL_RACE_CATEGORY];
+        this.ageCategory = fields[COL_AGE_CATEGORY];
+        this.overAllRank = fields[COL_OVERALL_RANK];
+        this.genderRank = fields[COL_GENDER_RANK];
+        this.ageCategoryRank = fields[COL_AGE_CATEGORY_RANK];
+        this.chipTime = fields[COL_CHIP_TIME];
+        this.gunTime = fields[COL_GUN_TIME];
+        this.checkpointColumns = checkpointColumns;
+    }
+
+    /**
+     * Codec for the template layout ({@code COL_BIB_NUMBER} ... {@code CHECKPOINT_START_COL}).
+     */
+    public static ResultRowCodec fixedLayout() {
+        int[] fields = new int[CHECKPOINT_START_COL];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = i;
+        }
+        return new ResultRowCodec(fields, null);
+    }
+
+    /**
+     * Binds columns by their header text, e.g. "Bib Number" or "chip_time". Columns named
+     * "Checkpoint ..." or "CP ...", and any other column from {@link #CHECKPOINT_START_COL}
+     * on, are checkpoints in column order. Falls back to the template layout unless at least
+     * the bib, name and chip time columns are found.
+     *
+     * @param header the source positioned on the header row
+     */
+    public static ResultRowCodec fromHeader(SheetRowSource header) {
+        int[] fields = new int[CHECKPOINT_START_COL];
+        Arrays.fill(fields, UNBOUND);
+        int[] checkpoints = new int[header.getCellCount()];
+        int checkpointCount = 0;
+
+        for (int column = 0; column < header.getCellCount(); column++) {
+            String name = normalise(header.getCell(column));
+            int field = fieldForHeader(name);
+            if (field != UNBOUND && fields[field] == UNBOUND) {
+                fields[field] = column;
+            } else if (name.startsWith("checkpoint") || name.startsWith("cp") || column >= CHECKPOINT_START_COL) {
+                // other headers past the template's fields, such as "10K" or "Split 1", are
+                // checkpoints as in the template layout
+                checkpoints[checkpointCount++] = column;
+            }
+        }
+
+        if (fields[COL_BIB_NUMBER] == UNBOUND || fields[COL_PARTICIPANT_NAME] == UNBOUND
+                || fields[COL_CHIP_TIME] == UNBOUND) {
+            log.info("Header row not recognised, using the template column layout");
+            return fixedLayout();
+        }
+        log.info("Bound columns from header row with {} checkpoint columns", checkpointCount);
+        return new ResultRowCodec(fields, Arrays.copyOf(checkpoints, checkpointCount));
+    }
+
+    public ResultRequestDTO decode(SheetRowSource row) {
+        ResultRequestDTO dto = new ResultRequestDTO();
+
+        dto.setBibNumber(cell(row, bibNumber));
+        dto.setParticipantName(cell(row, participantName));
+        dto.setGender(cell(row, gender));
+        dto.setRaceCategory(cell(row, raceCategory));
+        dto.setAgeCategory(cell(row, ageCategory));
+        dto.setOverAllRank(cell(row, overAllRank));
+        dto.setGenderRank(cell(row, genderRank));
+        dto.setAgeCategoryRank(cell(row, ageCategoryRank));
+        dto.setChipTime(parseTime(cell(row, chipTime)));
+        dto.setGunTime(parseTime(cell(row, gunTime)));
+        dto.setCheckpointTimes(decodeCheckpoints(row));
+        dto.setRowNumber(row.getRowNumber() + 1);
+
+        return dto;
+    }
+
+    public String bibNumber(SheetRowSource row) {
+        return cell(row, bibNumber);
+    }
+
+    private List<CheckpointRequestDTO> decodeCheckpoints(SheetRowSource row) {
+        int count = checkpointColumns != null
+                ? checkpointColumns.length
+                : Math.max(0, row.getCellCount() - CHECKPOINT_START_COL);
+        List<CheckpointRequestDTO> checkpoints = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int column = checkpointColumns != null ? checkpointColumns[i] : CHECKPOINT_START_COL + i;
+            LocalTime time = parseTime(row.getCell(column));
+            if (time != null) {
+                checkpoints.add(new CheckpointRequestDTO(i + 1, time));
+            }
+        }
+        return checkpoints;
+    }
+
+    private static String cell(SheetRowSource row, int column) {
+        return column == UNBOUND ? null : row.getCell(column);
+    }
+
+    /**
+     * Parses {@code H:mm:ss} or {@code mm:ss}. Values of any other shape give
+     * {@code null}; values of the right shape but out of range are logged and give
+     * {@code null}.
+     */
+    public static LocalTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') start++;
+        while (end > start && value.charAt(end - 1) <= ' ') end--;
+
+        // first field: one or two digits, then one or two ":dd" fields
+        int first = digitsAt(value, start, end);
+        if (first != 1 && first != 2) {
+            return null;
+        }
+        int[] fields = new int[3];
+        int fieldCount = 0;
+        fields[fieldCount++] = number(value, start, start + first);
+        int pos = start + first;
+        while (pos < end && fieldCount < 3) {
+            if (value.charAt(pos) != ':' || digitsAt(value, pos + 1, end) != 2) {
+                return null;
+            }
+            fields[fieldCount++] = number(value, pos + 1, pos + 3);
+            pos += 3;
+        }
+        if (pos != end || fieldCount < 2) {
+            return null;
+        }
+
+        int hours = fieldCount == 3 ? fields[0] : 0;
+        int minutes = fieldCount == 3 ? fields[1] : fields[0];
+        int seconds = fieldCount == 3 ? fields[2] : fields[1];
+        // 24:00:00 is accepted as midnight, as DateTimeFormatter's smart resolver did
+        if (hours == 24 && minutes == 0 && seconds == 0) {
+            return LocalTime.MIDNIGHT;
+        }
+        // mm:ss was parsed as H:mm:ss with a "0:" prefix, so its minutes need two digits
+        if ((fieldCount == 2 && first != 2) || hours > 23 || minutes > 59 || seconds > 59) {
+            log.warn("Could not parse time: {}", value.substring(start, end));
+            return null;
+        }
+        return LocalTime.of(hours, minutes, seconds);
+    }
+
+    /**
+     * Counts the digits starting at {@code from}, stopping at three.
+     */
+    private static int digitsAt(String value, int from, int end) {
+        int count = 0;
+        while (from + count < end && count < 3 && isAsciiDigit(value.charAt(from + count))) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int number(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    private static String normalise(String header) {
+        if (header == null) {
+            return "";
+        }
+        StringBuilder name = new StringBuilder(header.length());
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                name.append(Character.toLowerCase(c));
+            }
+        }
+        return name.toString();
+    }
+
+    private static int fieldForHeader(String name) {
+        return switch (name) {
+            case "bib", "bibnumber", "bibno" -> COL_BIB_NUMBER;
+            case "name", "participantname", "participant" -> COL_PARTICIPANT_NAME;
+            case "gender", "sex" -> COL_GENDER;
+            case "racecategory", "category", "race" -> COL_RACE_CATEGORY;
+            case "agecategory", "agegroup" -> COL_AGE_CATEGORY;
+            case "overallrank", "rank" -> COL_OVERALL_RANK;
+            case "genderrank" -> COL_GENDER_RANK;
+            case "agecategoryrank", "agegrouprank" -> COL_AGE_CATEGORY_RANK;
+            case "chiptime", "nettime" -> COL_CHIP_TIME;
+            case "guntime" -> COL_GUN_TIME;
+            default -> UNBOUND;
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.exception.ExcelReadingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the uploaded sheet into contiguous ranges of data rows (header excluded).
+ * Each range is handed to a worker step through its {@link ExecutionContext} under
+ * {@link #FROM_ROW} (inclusive) and {@link #TO_ROW} (exclusive), with the byte offset
+ * and line its first row starts at under {@link #FROM_OFFSET} and {@link #FROM_LINE}.
+ * A worker seeks straight to its range, so every row is decoded once whatever the
+ * number of partitions; finding the ranges only scans the bytes for row ends.
+ * <p>
+ * Only a plain CSV file can be entered in the middle (see {@link #canSplit}). Workbooks
+ * and compressed uploads are parsed from the start by any reader, so the job ingests them
+ * with the pipelined step instead; should one get here anyway, it is one range.
+ */
+@Component
+@StepScope
+@Slf4j
+public class ResultRowRangePartitioner implements Partitioner {
+
+    public static final String FROM_ROW = "fromRow";
+    public static final String TO_ROW = "toRow";
+    public static final String FROM_OFFSET = "fromOffset";
+    public static final String FROM_LINE = "fromLine";
+
+    private final String filePath;
+
+    public ResultRowRangePartitioner(@Value("#{jobParameters['filePath']}") String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * @return whether a reader of {@code filePath} can start at any row
+     */
+    public static boolean canSplit(String filePath) {
+        return filePath != null && filePath.toLowerCase().endsWith(".csv");
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+        if (!canSplit(filePath)) {
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(FROM_ROW, 0);
+            result.put("partition0", context);
+            log.info("{} cannot be split into row ranges, ingesting it as one partition", filePath);
+            return result;
+        }
+
+        try (MappedCsvRowSource rows = new MappedCsvRowSource(Paths.get(filePath))) {
+            if (!rows.skip()) {
+                return Map.of("partition0", rangeContext(0, 0, rows));
+            }
+            long dataOffset = rows.getNextRowOffset();
+            int dataLine = rows.getNextRowLine();
+            int dataRows = 0;
+            while (rows.skip()) {
+                dataRows++;
+            }
+            int partitions = Math.max(1, Math.min(gridSize, dataRows));
+            int rangeSize = (dataRows + partitions - 1) / partitions;
+
+            rows.seek(dataOffset, dataLine);
+            int row = 0;
+            for (int i = 0; i < partitions; i++) {
+                int fromRow = Math.min(i * rangeSize, dataRows);
+                for (; row < fromRow; row++) {
+                    rows.skip();
+                }
+                result.put("partition" + i, rangeContext(fromRow, Math.min((i + 1) * rangeSize, dataRows), rows));
+            }
+
+            log.info("Split {} data rows of {} into {} partitions of up to {} rows", dataRows, filePath, partitions, rangeSize);
+            return result;
+        } catch (IOException e) {
+            throw new ExcelReadingException("Could not count rows in " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    private static ExecutionContext rangeContext(int fromRow, int toRow, MappedCsvRowSource rows) {
+        ExecutionContext context = new ExecutionContext();
+        context.putInt(FROM_ROW, fromRow);
+        context.putInt(TO_ROW, toRow);
+        context.putLong(FROM_OFFSET, rows.getNextRowOffset());
+        context.putInt(FROM_LINE, rows.getNextRowLine());
+        return context;
+    }
+}
@@ -0,0 +1,162 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.exception.DuplicateBibException;
+import in.connectwithsandeepan.marathon.exception.ResultValidationException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The checks a result row has to pass before it is written, shared by
+ * {@link ResultItemProcessor} and the dry run ({@link ResultFileValidator}) so both
+ * reject exactly the same rows. Stateless and thread safe; the bib index carries the
+ * per-upload state.
+ * <p>
+ * Bean validation costs several microseconds a row, most of the processing time of a
+ * row, so rows are first checked against the same constraints with plain field
+ * comparisons. Only a row that fails them goes through the {@link Validator}, which
+ * reports the violations. The field checks are used only while the constraint
+ * annotations of the DTOs are the ones they were written for.
+ */
+@Component
+@Slf4j
+public class ResultRowValidator {
+
+    private static final Set<String> GENDERS = Set.of("M", "F", "O", "Male", "Female", "OTHER");
+    private static final Set<String> FIELD_CHECKED_CONSTRAINTS = Set.of(
+            "ResultRequestDTO.bibNumber NotBlank",
+            "ResultRequestDTO.bibNumber Size 0..20",
+            "ResultRequestDTO.participantName NotBlank",
+            "ResultRequestDTO.participantName Size 2..100",
+            "ResultRequestDTO.gender Pattern ^(M|F|O|Male|Female|OTHER)$",
+            "ResultRequestDTO.raceCategory NotBlank",
+            "ResultRequestDTO.chipTime NotNull",
+            "ResultRequestDTO.gunTime NotNull",
+            "ResultRequestDTO.checkpointTimes Valid",
+            "CheckpointRequestDTO.checkpointNumber Min 1",
+            "CheckpointRequestDTO.checkpointNumber Max 20",
+            "CheckpointRequestDTO.time NotNull");
+
+    private final Validator validator;
+    private final boolean fieldChecks;
+
+    public ResultRowValidator(Validator validator) {
+        this.validator = validator;
+        Set<String> constraints = new HashSet<>();
+        describeConstraints(ResultRequestDTO.class, constraints);
+        describeConstraints(CheckpointRequestDTO.class, constraints);
+        this.fieldChecks = constraints.equals(FIELD_CHECKED_CONSTRAINTS);
+        if (!fieldChecks) {
+            log.warn("Result row constraints differ from the field checks, validating every row with the bean validator: {}",
+                    constraints);
+        }
+    }
+
+    public void validateDto(ResultRequestDTO dto) {
+        if (fieldChecks && passesFieldChecks(dto)) {
+            return;
+        }
+        Set<ConstraintViolation<ResultRequestDTO>> violations = validator.validate(dto);
+
+        if (!violations.isEmpty()) {
+            String errors = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(", "));
+            throw new ResultValidationException("Validation failed for bib " + dto.getBibNumber() + ": " + errors);
+        }
+    }
+
+    /**
+     * The constraints of {@link ResultRequestDTO} and {@link CheckpointRequestDTO} as
+     * field comparisons. {@code true} means the bean validator would find no violation.
+     */
+    private static boolean passesFieldChecks(ResultRequestDTO dto) {
+        String bibNumber = dto.getBibNumber();
+        String participantName = dto.getParticipantName();
+        if (isBlank(bibNumber) || bibNumber.length() > 20
+                || isBlank(participantName) || participantName.length() < 2 || participantName.length() > 100
+                || (dto.getGender() != null && !GENDERS.contains(dto.getGender()))
+                || isBlank(dto.getRaceCategory())
+                || dto.getChipTime() == null || dto.getGunTime() == null) {
+            return false;
+        }
+        if (dto.getCheckpointTimes() != null) {
+            for (CheckpointRequestDTO checkpoint : dto.getCheckpointTimes()) {
+                if (checkpoint == null || checkpoint.getTime() == null
+                        || checkpoint.getCheckpointNumber() < 1 || checkpoint.getCheckpointNumber() > 20) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private void describeConstraints(Class<?> type, Set<String> constraints) {
+        BeanDescriptor bean = validator.getConstraintsForClass(type);
+        for (ConstraintDescriptor<?> constraint : bean.getConstraintDescriptors()) {
+            constraints.add(type.getSimpleName() + " " + describe(constraint));
+        }
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            String prefix = type.getSimpleName() + "." + property.getPropertyName() + " ";
+            if (property.isCascaded()) {
+                constraints.add(prefix + "Valid");
+            }
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                constraints.add(prefix + describe(constraint));
+            }
+        }
+    }
+
+    private static String describe(ConstraintDescriptor<?> constraint) {
+        String name = constraint.getAnnotation().annotationType().getSimpleName();
+        Map<String, Object> attributes = constraint.getAttributes();
+        return switch (name) {
+            case "Size" -> name + " " + attributes.get("min") + ".." + attributes.get("max");
+            case "Min", "Max" -> name + " " + attributes.get("value");
+            case "Pattern" -> ((Object[]) attributes.get("flags")).length == 0
+                    ? name + " " + attributes.get("regexp")
+                    : name + " with flags";
+            default -> name;
+        };
+    }
+
+    public void checkCategory(ResultRequestDTO dto, EventSnapshot snapshot) {
+        if (snapshot.getCategory(dto.getRaceCategory()) == null) {
+            throw new ResultValidationException("Invalid category: " + dto.getRaceCategory());
+        }
+    }
+
+    public void checkBib(ResultRequestDTO dto, BibIndex bibIndex) {
+        int row = dto.getRowNumber() != null ? dto.getRowNumber() : -1;
+        Integer earlierRow = bibIndex.register(dto.getBibNumber(), row);
+        if (earlierRow == null || earlierRow == row) {
+            return; // new bib, or the same row processed again after a chunk rollback
+        }
+        if (earlierRow == BibIndex.STORED) {
+            throw new DuplicateBibException("Duplicate bib number in row " + row + ": " + dto.getBibNumber()
+                    + " already exists for this event");
+        }
+        throw new DuplicateBibException("Duplicate bib number in row " + row + ": " + dto.getBibNumber()
+                + " was already used in row " + earlierRow);
+    }
+
+    public void checkBibAndCategory(ResultRequestDTO dto, EventSnapshot snapshot, BibIndex bibIndex) {
+        checkCategory(dto, snapshot);
+        checkBib(dto, bibIndex);
+    }
+}
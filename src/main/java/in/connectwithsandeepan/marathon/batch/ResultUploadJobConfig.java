@@ -1,31 +1,133 @@
 package in.connectwithsandeepan.marathon.batch;
 
+import in.connectwithsandeepan.marathon.service.LeaderboardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.*;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
-import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 
 @Configuration
 @RequiredArgsConstructor
 @Slf4j
-@EnableBatchProcessing
+@EnableBatchProcessing(dataSourceRef = "batchDataSource", transactionManagerRef = "batchTransactionManager")
 public class ResultUploadJobConfig {
+    static final String UPDATE_LAST_INGEST_SHA256 = "UPDATE event SET last_ingest_sha256 = ? WHERE id = ?";
+
     private final JobRepository jobRepository;
+    private final BibIndexRegistry bibIndexRegistry;
+    private final EventSnapshotRegistry eventSnapshotRegistry;
+    private final IngestStreamRegistry ingestStreamRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderboardService leaderboardService;
 
+    /**
+     * Deletes the old results (REPLACE only), ingests the file, then deletes results the
+     * file no longer contains (DELTA only) or swaps the staged rows in (STAGED only). A
+     * failed run can be restarted with its own parameters: completed steps are skipped and
+     * the ingest step resumes after the last committed chunk.
+     */
     @Bean
-    public Job resultUploadJob(Step processResultsStep) {
+    public Job resultUploadJob(
+            Step purgeResultsStep,
+            Step processResultsStep,
+            Step partitionedProcessResultsStep,
+            Step pipelinedProcessResultsStep,
+            Step deleteStaleResultsStep,
+            Step swapStagedResultsStep,
+            JobProgressBroadcaster progressBroadcaster,
+            @Value("${batch.ingest.step-mode:SIMPLE}") IngestStepMode stepMode) {
+
+        if (stepMode == IngestStepMode.PARTITIONED) {
+            log.info("Result upload job uses PARTITIONED ingest step for CSV files, otherwise PIPELINED: {} / {}",
+                    partitionedProcessResultsStep.getName(), pipelinedProcessResultsStep.getName());
+            return partitionedJob(purgeResultsStep, partitionedProcessResultsStep, pipelinedProcessResultsStep,
+                    deleteStaleResultsStep, swapStagedResultsStep, progressBroadcaster);
+        }
+
+        Step ingestStep = stepMode == IngestStepMode.PIPELINED ? pipelinedProcessResultsStep : processResultsStep;
+        log.info("Result upload job uses {} ingest step: {}", stepMode, ingestStep.getName());
+
+        return new JobBuilder("resultUploadJob", jobRepository)
+                .start(purgeResultsStep)
+                .next(ingestStep)
+                .next(deleteStaleResultsStep)
+                .next(swapStagedResultsStep)
+                .listener(jobExecutionListener())
+                .listener(progressBroadcaster)
+                .build();
+    }
+
+    /**
+     * Only files a reader can enter at any row are split into row ranges (see
+     * {@link ResultRowRangePartitioner#canSplit}); every partition of another file would
+     * have to parse it from the start, so those are ingested by the pipelined step.
+     */
+    private Job partitionedJob(
+            Step purgeResultsStep,
+            Step partitionedProcessResultsStep,
+            Step pipelinedProcessResultsStep,
+            Step deleteStaleResultsStep,
+            Step swapStagedResultsStep,
+            JobProgressBroadcaster progressBroadcaster) {
+
+        JobExecutionDecider splittable = (jobExecution, stepExecution) -> new FlowExecutionStatus(
+                ResultRowRangePartitioner.canSplit(jobExecution.getJobParameters().getString("filePath"))
+                        ? IngestStepMode.PARTITIONED.name() : IngestStepMode.PIPELINED.name());
+        Flow afterIngest = new FlowBuilder<Flow>("afterIngestFlow")
+                .start(deleteStaleResultsStep)
+                .next(swapStagedResultsStep)
+                .build();
+
         return new JobBuilder("resultUploadJob", jobRepository)
-                .start(processResultsStep)
+                .start(purgeResultsStep)
+                .next(splittable)
+                .on(IngestStepMode.PARTITIONED.name()).to(partitionedProcessResultsStep).next(afterIngest)
+                .from(splittable)
+                .on(IngestStepMode.PIPELINED.name()).to(pipelinedProcessResultsStep).next(afterIngest)
+                .end()
                 .listener(jobExecutionListener())
+                .listener(progressBroadcaster)
+                .build();
+    }
+
+    /**
+     * Ingests an upload while it is still arriving (see {@link IngestStream}). A stream
+     * cannot be split into row ranges up front, so PARTITIONED falls back to the simple step.
+     * A restart reads the audit copy instead, as the stream is gone by then.
+     */
+    @Bean
+    public Job streamingResultUploadJob(
+            Step purgeResultsStep,
+            Step processResultsStep,
+            Step pipelinedProcessResultsStep,
+            Step deleteStaleResultsStep,
+            Step swapStagedResultsStep,
+            JobProgressBroadcaster progressBroadcaster,
+            @Value("${batch.ingest.step-mode:SIMPLE}") IngestStepMode stepMode) {
+
+        Step ingestStep = stepMode == IngestStepMode.PIPELINED ? pipelinedProcessResultsStep : processResultsStep;
+        log.info("Streaming result upload job uses ingest step: {}", ingestStep.getName());
+
+        return new JobBuilder("streamingResultUploadJob", jobRepository)
+                .start(purgeResultsStep)
+                .next(ingestStep)
+                .next(deleteStaleResultsStep)
+                .next(swapStagedResultsStep)
+                .listener(jobExecutionListener())
+                .listener(progressBroadcaster)
                 .build();
     }
 
@@ -57,6 +159,19 @@ public class ResultUploadJobConfig {
                 log.info("Status: {}", jobExecution.getStatus());
                 log.info("End Time: {}", jobExecution.getEndTime());
 
+                bibIndexRegistry.release(jobExecution.getId());
+                eventSnapshotRegistry.release(jobExecution.getId());
+                String streamId = params.getString("streamId");
+                if (streamId != null) {
+                    ingestStreamRegistry.release(streamId);
+                }
+                // only a completed job leaves the results exactly as in its file; streamed
+                // uploads have no hash when they start, so they clear it too
+                jdbcTemplate.update(UPDATE_LAST_INGEST_SHA256,
+                        jobExecution.getStatus() == BatchStatus.COMPLETED ? params.getString("fileSha256") : null, eventId);
+                // a failed job may have committed chunks too
+                leaderboardService.rebuild(eventId);
+
                 // Log step statistics
                 for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
                     log.info("Records Read: {}", stepExecution.getReadCount());
@@ -73,13 +188,30 @@ public class ResultUploadJobConfig {
         };
     }
 
+    /**
+     * Launches upload jobs through {@link IngestJobScheduler}: at most {@code workers}
+     * jobs run at once, one per event, and the rest wait in line.
+     */
     @Bean("launcher")
     @Primary
-    public JobLauncher asyncJobLauncher(JobRepository jobRepository) throws Exception {
-        TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
-        jobLauncher.setJobRepository(jobRepository);
-        jobLauncher.setTaskExecutor(new SimpleAsyncTaskExecutor());
-        jobLauncher.afterPropertiesSet();
-        return jobLauncher;
+    public IngestJobScheduler asyncJobLauncher(
+            JobRepository jobRepository,
+            ThreadPoolTaskExecutor ingestJobExecutor,
+            @Value("${batch.ingest.scheduler.queue-capacity:20}") int queueCapacity) throws Exception {
+        return new IngestJobScheduler(jobRepository, ingestStreamRegistry, ingestJobExecutor,
+                ingestJobExecutor.getMaxPoolSize(), queueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor ingestJobExecutor(@Value("${batch.ingest.scheduler.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        // the scheduler never hands over more jobs than workers; this only covers the
+        // moment a finishing job has freed its slot but not yet its thread
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("ingest-job-");
+        log.info("Ingest job workers: {}", workers);
+        return executor;
     }
 }
@@ -1,9 +1,5 @@
 package in.connectwithsandeepan.marathon.batch;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import in.connectwithsandeepan.marathon.entity.Event;
-import in.connectwithsandeepan.marathon.entity.EventCategory;
 import in.connectwithsandeepan.marathon.exception.BatchStartException;
 import in.connectwithsandeepan.marathon.repo.EventRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -13,49 +9,101 @@ import org.springframework.batch.core.*;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ResultUploadJobService {
 
     private final JobLauncher jobLauncher;
-    private final Job job;
+    private final Job resultUploadJob;
+    private final Job streamingResultUploadJob;
     private final EventRepository eventRepository;
-    private final ObjectMapper objectMapper;
 
 
-    public JobExecution startResultUpload(Long eventId, String filePath) {
+    /**
+     * @param fileSha256 hash of the file, recorded with the event if the job completes;
+     *                   {@code null} if unknown
+     */
+    public JobExecution startResultUpload(Long eventId, String filePath, IngestMode mode, String fileSha256) {
         try {
 
-            Event event = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new EntityNotFoundException("Event not found: " + eventId));
+            if (!eventRepository.existsById(eventId)) {
+                throw new EntityNotFoundException("Event not found: " + eventId);
+            }
+
+            // Event and categories are loaded by the job itself (EventSnapshotRegistry)
+            JobParametersBuilder parameters = new JobParametersBuilder()
+                    .addLong("eventId", eventId)
+                    .addString("filePath", filePath)
+                    .addString("mode", mode.name())
+                    .addLong("timestamp", System.currentTimeMillis());
+            if (fileSha256 != null) {
+                parameters.addString("fileSha256", fileSha256, false);
+            }
+            JobParameters jobParameters = parameters.toJobParameters();
+
+            log.info("Launching {} result upload job for event {} with file {}", mode, eventId, filePath);
+
+            JobExecution execution = jobLauncher.run(resultUploadJob, jobParameters);
+
+            log.info("Job launched with execution ID: {}", execution.getId());
+            return execution;
+
+        } catch (JobExecutionException e) {
+            log.error("Failed to start result upload job: {}", e.getMessage(), e);
+            throw new BatchStartException("Failed to start batch job");
+        }
+    }
 
-            List<EventCategory> categories = event.getEventCategories();
-            String eventJson = objectMapper.writeValueAsString(event);
-            String categoriesJson = objectMapper.writeValueAsString(categories);
+    /**
+     * Starts ingesting an upload that is still arriving on {@code streamId}. The job runs
+     * on the launcher's executor and reads the stream as the request thread fills it;
+     * {@code filePath} is where the audit copy ends up.
+     */
+    public JobExecution startStreamingUpload(Long eventId, String filePath, String streamId, IngestMode mode) {
+        try {
+            if (!eventRepository.existsById(eventId)) {
+                throw new EntityNotFoundException("Event not found: " + eventId);
+            }
 
             JobParameters jobParameters = new JobParametersBuilder()
                     .addLong("eventId", eventId)
                     .addString("filePath", filePath)
-                    .addString("eventData", eventJson)
-                    .addString("categoriesData", categoriesJson)
-                    .addLong("timestamp", System.currentTimeMillis())
+                    .addString("mode", mode.name())
+                    .addString("streamId", streamId)
                     .toJobParameters();
 
-            log.info("Launching result upload job for event {} with file {}", eventId, filePath);
+            log.info("Launching {} streaming result upload job for event {} on stream {}", mode, eventId, streamId);
 
-            JobExecution execution = jobLauncher.run(job, jobParameters);
+            JobExecution execution = jobLauncher.run(streamingResultUploadJob, jobParameters);
 
             log.info("Job launched with execution ID: {}", execution.getId());
             return execution;
 
         } catch (JobExecutionException e) {
-            log.error("Failed to start result upload job: {}", e.getMessage(), e);
+            log.error("Failed to start streaming result upload job: {}", e.getMessage(), e);
             throw new BatchStartException("Failed to start batch job");
-        } catch (JsonProcessingException e) {
-            throw new BatchStartException("Batch start failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Restarts a failed or stopped upload with its original parameters. Spring Batch skips
+     * the steps that completed and resumes the ingest step after its last committed chunk.
+     */
+    public JobExecution restart(JobExecution failedExecution) {
+        String jobName = failedExecution.getJobInstance().getJobName();
+        Job job = streamingResultUploadJob.getName().equals(jobName) ? streamingResultUploadJob : resultUploadJob;
+        try {
+            log.info("Restarting {} execution {}", jobName, failedExecution.getId());
+
+            JobExecution execution = jobLauncher.run(job, failedExecution.getJobParameters());
+
+            log.info("Job restarted with execution ID: {}", execution.getId());
+            return execution;
+
+        } catch (JobExecutionException e) {
+            log.error("Failed to restart result upload job {}: {}", failedExecution.getId(), e.getMessage(), e);
+            throw new BatchStartException("Failed to restart batch job: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Forward-only view over the rows of the first sheet of an uploaded results file.
+ * Implementations expose one row at a time so the reader never has to hold the
+ * whole sheet in memory.
+ */
+public interface SheetRowSource extends Closeable {
+
+    /**
+     * Advances to the next row of the sheet.
+     *
+     * @return {@code true} if a row is available, {@code false} at the end of the sheet
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return zero based index of the current row in the sheet
+     */
+    int getRowNumber();
+
+    /**
+     * @return index of the last cell in the current row plus one, like {@code Row.getLastCellNum()}
+     */
+    int getCellCount();
+
+    /**
+     * Returns the value of a cell in the current row, formatted the same way for every
+     * file type: strings are trimmed, numbers are truncated to whole numbers and blank
+     * cells are returned as an empty string.
+     *
+     * @param column zero based column index
+     * @return the cell value, or {@code null} if the row has no such cell
+     */
+    String getCell(int column);
+}
@@ -0,0 +1,141 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens the right {@link SheetRowSource} for an uploaded results file. CSV files are
+ * always memory mapped. Workbooks are streamed by default;
+ * {@code batch.ingest.reader.streaming=false} falls back to loading the whole workbook
+ * with POI's usermodel.
+ * <p>
+ * Compressed uploads, a gzipped CSV ({@code .csv.gz}) or a zip holding one CSV or workbook
+ * ({@code .zip}), are inflated while they are read and never written to disk inflated. A
+ * CSV is decoded block by block from the inflating stream; a workbook is loaded from it
+ * into memory, as POI needs the whole package. Reading fails once more than
+ * {@code max-inflated-size} bytes came out of the archive.
+ * <p>
+ * A zipped workbook is inflated and held in memory again every time it is opened: by each
+ * partition of a partitioned step and by every restart. It is capped on its own by
+ * {@code max-zipped-workbook-size}, which bounds that memory per open.
+ */
+@Component
+@Slf4j
+public class SheetRowSourceFactory {
+
+    private static final int INFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean streaming;
+    private final long maxInflatedBytes;
+    private final long maxZippedWorkbookBytes;
+
+    public SheetRowSourceFactory(
+            @Value("${batch.ingest.reader.streaming:true}") boolean streaming,
+            @Value("${batch.ingest.upload.max-inflated-size:50MB}") DataSize maxInflatedSize,
+            @Value("${batch.ingest.upload.max-zipped-workbook-size:10MB}") DataSize maxZippedWorkbookSize) {
+        this.streaming = streaming;
+        this.maxInflatedBytes = maxInflatedSize.toBytes();
+        this.maxZippedWorkbookBytes = maxZippedWorkbookSize.toBytes();
+    }
+
+    public SheetRowSource open(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        String filename = path.getFileName().toString().toLowerCase();
+
+        if (filename.endsWith(".csv.gz")) {
+            log.debug("Opening {} with gzip CSV reader", path);
+            return openGzip(path, filename);
+        }
+        if (filename.endsWith(".zip")) {
+            return openZipEntry(path);
+        }
+        if (filename.endsWith(".csv")) {
+            log.debug("Opening {} with memory-mapped CSV reader", path);
+            return new MappedCsvRowSource(path);
+        }
+        if (!streaming) {
+            log.debug("Opening {} with workbook reader", path);
+            return new WorkbookRowSource(path);
+        }
+        if (filename.endsWith(".xls")) {
+            log.debug("Opening {} with streaming .xls reader", path);
+            return new XlsStreamingRowSource(path);
+        }
+        log.debug("Opening {} with streaming .xlsx reader", path);
+        return new XlsxStreamingRowSource(path);
+    }
+
+    private SheetRowSource openGzip(Path path, String filename) throws IOException {
+        InputStream compressed = Files.newInputStream(path);
+        try {
+            InputStream gzip = new GZIPInputStream(compressed, INFLATE_BUFFER_SIZE);
+            return new InputStreamCsvRowSource(new SizeLimitedInputStream(gzip, maxInflatedBytes, filename));
+        } catch (IOException | RuntimeException e) {
+            compressed.close(); // e.g. not in gzip format
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the first file of a zip upload; directories and the metadata entries macOS
+     * adds are passed over.
+     */
+    private SheetRowSource openZipEntry(Path path) throws IOException {
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(path), INFLATE_BUFFER_SIZE));
+        try {
+            ZipEntry entry = zip.getNextEntry();
+            while (entry != null && (entry.isDirectory() || isMetadata(entry.getName()))) {
+                entry = zip.getNextEntry();
+            }
+            if (entry == null) {
+                throw new IOException("No results file in " + path.getFileName());
+            }
+
+            String name = entry.getName().toLowerCase();
+            if (name.endsWith(".csv")) {
+                log.debug("Opening {} in {} with zipped CSV reader", entry.getName(), path);
+                return new InputStreamCsvRowSource(new SizeLimitedInputStream(zip, maxInflatedBytes, entry.getName()));
+            }
+            if (!name.endsWith(".xlsx") && !name.endsWith(".xls")) {
+                throw new IOException("Unsupported file " + entry.getName() + " in " + path.getFileName()
+                        + ", expected .xlsx, .xls or .csv");
+            }
+            InputStream inflated = new SizeLimitedInputStream(zip,
+                    Math.min(maxInflatedBytes, maxZippedWorkbookBytes), entry.getName());
+
+            // workbooks are read completely while they are opened
+            try (zip) {
+                if (!streaming) {
+                    log.debug("Opening {} in {} with workbook reader", entry.getName(), path);
+                    return new WorkbookRowSource(inflated);
+                }
+                if (name.endsWith(".xls")) {
+                    log.debug("Opening {} in {} with streaming .xls reader", entry.getName(), path);
+                    return new XlsStreamingRowSource(inflated);
+                }
+                log.debug("Opening {} in {} with streaming .xlsx reader", entry.getName(), path);
+                return new XlsxStreamingRowSource(inflated, entry.getName());
+            }
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    private static boolean isMetadata(String entryName) {
+        String name = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return entryName.startsWith("__MACOSX/") || name.startsWith(".");
+    }
+}
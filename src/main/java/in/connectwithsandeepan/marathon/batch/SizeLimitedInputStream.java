@@ -0,0 +1,55 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with an {@link IOException} as soon as more than {@code maxBytes} have been read.
+ * Wraps the inflating stream of a compressed upload, so a file that inflates far beyond
+ * its compressed size is stopped after {@code maxBytes} instead of filling the heap.
+ */
+class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final String name;
+    private long count;
+
+    SizeLimitedInputStream(InputStream in, long maxBytes, String name) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.name = name;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long bytes) throws IOException {
+        count += bytes;
+        if (count > maxBytes) {
+            throw new IOException(name + " inflates to more than " + maxBytes + " bytes");
+        }
+    }
+}
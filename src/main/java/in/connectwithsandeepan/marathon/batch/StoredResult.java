@@ -0,0 +1,10 @@
+package in.connectwithsandeepan.marathon.batch;
+
+/**
+ * Key columns of a stored result, used to match uploaded rows in {@link IngestMode#DELTA}.
+ *
+ * @param contentHash {@link ResultContentHash} of the stored row, or {@code null} if it was
+ *                    stored before hashes were recorded
+ */
+public record StoredResult(String bibNumber, Long id, Long contentHash) {
+}
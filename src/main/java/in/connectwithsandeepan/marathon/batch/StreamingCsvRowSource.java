@@ -0,0 +1,38 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads CSV rows from an {@link IngestStream} while the upload is still arriving. The
+ * heap buffer only holds the unread tail of the previous block plus the next block.
+ */
+public class StreamingCsvRowSource extends CsvRowSource {
+
+    private final IngestStream stream;
+    private boolean ended;
+
+    public StreamingCsvRowSource(IngestStream stream) {
+        super(ByteBuffer.allocate(2 * IngestStream.BLOCK_SIZE).flip());
+        this.stream = stream;
+    }
+
+    @Override
+    protected boolean refill() throws IOException {
+        if (ended) {
+            return false;
+        }
+        byte[] block = stream.take();
+        if (block == null) {
+            ended = true;
+            return false;
+        }
+        append(block, block.length);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+}
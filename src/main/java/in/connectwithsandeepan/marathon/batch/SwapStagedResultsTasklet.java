@@ -0,0 +1,68 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Last step of a {@link IngestMode#STAGED} upload: replaces the event's results with the
+ * rows the job staged and clears its staging rows, all in the step transaction. Readers
+ * see the old results until it commits and the new ones after, and the live tables are
+ * only locked by this one transaction. Does nothing for other uploads.
+ */
+@Component
+@StepScope
+@Slf4j
+public class SwapStagedResultsTasklet implements Tasklet {
+
+    private static final String COPY_RESULTS = "INSERT INTO result (id, bib_number, participant_name, gender, " +
+            "age_category, over_all_rank, gender_rank, age_category_rank, chip_time, gun_time, event_id, " +
+            "event_category_id, content_hash, over_all_position) " +
+            "SELECT id, bib_number, participant_name, gender, age_category, over_all_rank, gender_rank, " +
+            "age_category_rank, chip_time, gun_time, event_id, event_category_id, content_hash, over_all_position " +
+            "FROM result_staging WHERE job_instance_id = ?";
+    private static final String COPY_CHECKPOINTS = "INSERT INTO checkpoint (id, checkpoint_number, time, result_id) " +
+            "SELECT id, checkpoint_number, time, result_id FROM checkpoint_staging WHERE job_instance_id = ?";
+    static final String DELETE_STAGED_CHECKPOINTS = "DELETE FROM checkpoint_staging WHERE job_instance_id = ?";
+    static final String DELETE_STAGED_RESULTS = "DELETE FROM result_staging WHERE job_instance_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Long eventId;
+    private final IngestMode mode;
+
+    public SwapStagedResultsTasklet(
+            JdbcTemplate jdbcTemplate,
+            @Value("#{jobParameters['eventId']}") Long eventId,
+            @Value("#{jobParameters['mode']}") String mode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventId = eventId;
+        this.mode = IngestMode.fromParameter(mode);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        if (mode != IngestMode.STAGED) {
+            return RepeatStatus.FINISHED;
+        }
+
+        long start = System.nanoTime();
+        Long jobInstanceId = chunkContext.getStepContext().getStepExecution().getJobExecution().getJobId();
+        jdbcTemplate.update(PurgeResultsTasklet.DELETE_CHECKPOINTS, eventId);
+        int deleted = jdbcTemplate.update(PurgeResultsTasklet.DELETE_RESULTS, eventId);
+        int inserted = jdbcTemplate.update(COPY_RESULTS, jobInstanceId);
+        int checkpoints = jdbcTemplate.update(COPY_CHECKPOINTS, jobInstanceId);
+        jdbcTemplate.update(DELETE_STAGED_CHECKPOINTS, jobInstanceId);
+        jdbcTemplate.update(DELETE_STAGED_RESULTS, jobInstanceId);
+
+        contribution.incrementWriteCount(inserted);
+        log.info("Replaced {} results of event {} with {} staged results and {} checkpoints in {} ms",
+                deleted, eventId, inserted, checkpoints, (System.nanoTime() - start) / 1_000_000);
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,84 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of an uploaded results file, kept in a {@code .sha256} file next to it. The
+ * hash is computed while the upload is copied to disk, by reading the body through
+ * {@link #digesting}, so the file is only read again for it to check that a failed job's
+ * file is unchanged before a restart.
+ */
+public final class UploadedFileHash {
+
+    private static final String SUFFIX = ".sha256";
+
+    private final MessageDigest digest = sha256();
+
+    /**
+     * @return {@code body}, updating this hash with every byte read from it
+     */
+    public InputStream digesting(InputStream body) {
+        return new DigestInputStream(body, digest);
+    }
+
+    /**
+     * Stores the hash of everything read so far as the hash of {@code upload}.
+     *
+     * @return the hash, lower case hex
+     */
+    public String saveFor(Path upload) throws IOException {
+        String hex = HexFormat.of().formatHex(digest.digest());
+        Files.writeString(pathFor(upload), hex, StandardCharsets.US_ASCII);
+        return hex;
+    }
+
+    /**
+     * Reads {@code file} through and hashes it.
+     *
+     * @return the hash, lower case hex
+     */
+    public static String of(Path file) throws IOException {
+        UploadedFileHash hash = new UploadedFileHash();
+        try (InputStream body = hash.digesting(Files.newInputStream(file))) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(hash.digest.digest());
+    }
+
+    /**
+     * @return the stored hash of {@code upload}, or {@code null} if it has none
+     */
+    public static String readFor(Path upload) throws IOException {
+        Path path = pathFor(upload);
+        return Files.exists(path) ? Files.readString(path, StandardCharsets.US_ASCII).trim() : null;
+    }
+
+    /**
+     * Drops the stored hash of {@code upload}; called before the file is overwritten, so a
+     * failed write never leaves the old hash next to new content.
+     */
+    public static void deleteFor(Path upload) throws IOException {
+        Files.deleteIfExists(pathFor(upload));
+    }
+
+    private static Path pathFor(Path upload) {
+        return upload.resolveSibling(upload.getFileName() + SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
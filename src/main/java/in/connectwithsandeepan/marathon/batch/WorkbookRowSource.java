@@ -0,0 +1,69 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Row source backed by a fully loaded POI {@link Workbook}. Kept as a fallback for
+ * the streaming sources; it holds the whole sheet in memory.
+ */
+public class WorkbookRowSource implements SheetRowSource {
+
+    private final Workbook workbook;
+    private final Iterator<Row> rowIterator;
+    private Row row;
+
+    public WorkbookRowSource(Path file) throws IOException {
+        this(WorkbookFactory.create(file.toFile(), null, true));
+    }
+
+    public WorkbookRowSource(InputStream input) throws IOException {
+        this(WorkbookFactory.create(input));
+    }
+
+    private WorkbookRowSource(Workbook workbook) {
+        this.workbook = workbook;
+        this.rowIterator = workbook.getSheetAt(0).iterator();
+    }
+
+    @Override
+    public boolean next() {
+        row = rowIterator.hasNext() ? rowIterator.next() : null;
+        return row != null;
+    }
+
+    @Override
+    public int getRowNumber() {
+        return row.getRowNum();
+    }
+
+    @Override
+    public int getCellCount() {
+        return row.getLastCellNum();
+    }
+
+    @Override
+    public String getCell(int column) {
+        Cell cell = row.getCell(column);
+        if (cell == null) return null;
+
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue().trim();
+            case NUMERIC -> String.valueOf((long) cell.getNumericCellValue());
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            default -> "";
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+}
@@ -0,0 +1,147 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Streams the first sheet of a legacy .xls (BIFF8) file record by record with
+ * {@link RecordFactoryInputStream}, without building the HSSF usermodel.
+ */
+public class XlsStreamingRowSource implements SheetRowSource {
+
+    private final POIFSFileSystem fileSystem;
+    private final InputStream workbookStream;
+    private final RecordFactoryInputStream records;
+
+    private SSTRecord sharedStrings;
+    private int sheetsSeen;
+    private boolean inFirstSheet;
+    private boolean finished;
+    private CellValueRecordInterface pending;
+    private final Deque<CellValueRecordInterface> expanded = new ArrayDeque<>();
+
+    private String[] cells = new String[16];
+    private int cellCount;
+    private int rowNumber = -1;
+
+    public XlsStreamingRowSource(Path file) throws IOException {
+        this(new POIFSFileSystem(file.toFile(), true));
+    }
+
+    /**
+     * Reads the workbook from {@code input}, e.g. the entry of a zip upload. The file
+     * system is held in memory; records are still decoded one at a time.
+     */
+    public XlsStreamingRowSource(InputStream input) throws IOException {
+        this(new POIFSFileSystem(input));
+    }
+
+    private XlsStreamingRowSource(POIFSFileSystem fileSystem) throws IOException {
+        this.fileSystem = fileSystem;
+        this.workbookStream = fileSystem.createDocumentInputStream(
+                HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot()));
+        this.records = new RecordFactoryInputStream(workbookStream, false);
+    }
+
+    @Override
+    public boolean next() {
+        Arrays.fill(cells, 0, cellCount, null);
+        cellCount = 0;
+
+        CellValueRecordInterface cell = pending != null ? pending : nextCell();
+        pending = null;
+        if (cell == null) {
+            return false;
+        }
+
+        rowNumber = cell.getRow();
+        while (cell != null && cell.getRow() == rowNumber) {
+            storeCell(cell);
+            cell = nextCell();
+        }
+        pending = cell;
+        return true;
+    }
+
+    @Override
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public String getCell(int column) {
+        return column < cellCount ? cells[column] : null;
+    }
+
+    /**
+     * Returns the next cell record of the first worksheet, picking up the shared string
+     * table from the workbook globals on the way.
+     */
+    private CellValueRecordInterface nextCell() {
+        if (!expanded.isEmpty()) {
+            return expanded.poll();
+        }
+        while (!finished) {
+            org.apache.poi.hssf.record.Record record = records.nextRecord();
+            if (record == null) {
+                finished = true;
+            } else if (record instanceof BOFRecord bof && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                inFirstSheet = ++sheetsSeen == 1;
+            } else if (record instanceof EOFRecord && inFirstSheet) {
+                finished = true;
+            } else if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+            } else if (inFirstSheet && record instanceof CellValueRecordInterface cell) {
+                return cell;
+            } else if (inFirstSheet && record instanceof MulBlankRecord blanks) {
+                expanded.addAll(Arrays.asList(RecordFactory.convertBlankRecords(blanks)));
+                return expanded.poll();
+            }
+        }
+        return null;
+    }
+
+    private void storeCell(CellValueRecordInterface cell) {
+        int column = cell.getColumn();
+        if (column >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+        }
+        cells[column] = cellValue(cell);
+        cellCount = Math.max(cellCount, column + 1);
+    }
+
+    private String cellValue(CellValueRecordInterface cell) {
+        if (cell instanceof LabelSSTRecord label) {
+            return sharedStrings.getString(label.getSSTIndex()).getString().trim();
+        }
+        if (cell instanceof LabelRecord label) {
+            return label.getValue().trim();
+        }
+        if (cell instanceof NumberRecord number) {
+            return String.valueOf((long) number.getValue());
+        }
+        if (cell instanceof BoolErrRecord boolErr && boolErr.isBoolean()) {
+            return String.valueOf(boolErr.getBooleanValue());
+        }
+        return "";
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbookStream.close();
+        fileSystem.close();
+    }
+}
@@ -0,0 +1,195 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streams the first sheet of an .xlsx file straight from the package XML using
+ * {@link XSSFReader} and a {@link ReadOnlySharedStringsTable}. Only the current row
+ * is kept in memory, so heap use does not grow with the number of runners.
+ */
+public class XlsxStreamingRowSource implements SheetRowSource {
+
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final InputStream sheetData;
+    private final XMLStreamReader xml;
+
+    private String[] cells = new String[16];
+    private int cellCount;
+    private int rowNumber = -1;
+
+    public XlsxStreamingRowSource(Path file) throws IOException {
+        this(openPackage(file), file.toString());
+    }
+
+    /**
+     * Reads the workbook from {@code input}, e.g. the entry of a zip upload. The package
+     * is held in memory; the sheet XML is still parsed one row at a time.
+     */
+    public XlsxStreamingRowSource(InputStream input, String name) throws IOException {
+        this(openPackage(input, name), name);
+    }
+
+    private XlsxStreamingRowSource(OPCPackage pkg, String name) throws IOException {
+        this.pkg = pkg;
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            this.sheetData = reader.getSheetsData().next();
+            this.xml = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheetData);
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            pkg.revert();
+            throw new IOException("Could not open workbook " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static OPCPackage openPackage(Path file) throws IOException {
+        try {
+            return OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Could not open workbook " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static OPCPackage openPackage(InputStream input, String name) throws IOException {
+        try {
+            return OPCPackage.open(input);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Could not open workbook " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                    if (readRow()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            throw new IOException("Error reading sheet data: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public String getCell(int column) {
+        return column < cellCount ? cells[column] : null;
+    }
+
+    /**
+     * Reads one {@code <row>} element. Rows without any cells (formatting only) are
+     * reported as empty so the caller can move past them.
+     */
+    private boolean readRow() throws XMLStreamException {
+        String ref = xml.getAttributeValue(null, "r");
+        rowNumber = ref != null ? Integer.parseInt(ref) - 1 : rowNumber + 1;
+        Arrays.fill(cells, 0, cellCount, null);
+        cellCount = 0;
+
+        int column = -1;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                String cellRef = xml.getAttributeValue(null, "r");
+                column = cellRef != null ? columnIndex(cellRef) : column + 1;
+                store(column, readCell(xml.getAttributeValue(null, "t")));
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        return cellCount > 0;
+    }
+
+    private String readCell(String type) throws XMLStreamException {
+        String value = null;
+        StringBuilder inline = null;
+        boolean formula = false;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "v" -> value = xml.getElementText();
+                    case "f" -> formula = true;
+                    case "t" -> {
+                        if (inline == null) inline = new StringBuilder();
+                        inline.append(xml.getElementText());
+                    }
+                    default -> { }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+
+        if (formula) return "";
+        if (type == null || "n".equals(type)) {
+            return value == null || value.isEmpty() ? "" : String.valueOf((long) Double.parseDouble(value));
+        }
+        return switch (type) {
+            case "s" -> value == null ? "" : sharedStrings.getItemAt(Integer.parseInt(value)).getString().trim();
+            case "inlineStr" -> inline == null ? "" : inline.toString().trim();
+            case "b" -> String.valueOf("1".equals(value));
+            default -> "";
+        };
+    }
+
+    private void store(int column, String value) {
+        if (column >= cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+        }
+        cells[column] = value;
+        cellCount = Math.max(cellCount, column + 1);
+    }
+
+    private static int columnIndex(String cellRef) {
+        int column = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            sheetData.close();
+            pkg.revert();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package in.connectwithsandeepan.marathon.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchDataSource;
+import org.springframework.boot.autoconfigure.batch.BatchTransactionManager;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Two connection pools on the same database, so a large ingest cannot make API requests
+ * wait for a connection. The primary pool ({@code spring.datasource.*}) serves JPA and
+ * therefore every controller. The batch pool ({@code batch.datasource.*}) serves the
+ * upload jobs: the job repository, the chunk and tasklet transactions and the JDBC
+ * writers. Both pools publish their {@code hikaricp.*} metrics tagged with their pool name.
+ * <p>
+ * Declaring the pools here replaces Boot's data source, transaction manager and
+ * {@link JdbcTemplate}, so the JPA transaction manager is declared too. The only
+ * {@link JdbcTemplate} beans use the batch pool; API code goes through JPA, except the
+ * results export, which streams its rows with its own template on the primary pool.
+ */
+@Configuration
+@Slf4j
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(
+            EntityManagerFactory entityManagerFactory,
+            ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    @ConfigurationProperties("batch.datasource")
+    public DataSourceProperties batchDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @BatchDataSource
+    @ConfigurationProperties("batch.datasource.hikari")
+    public HikariDataSource batchDataSource(
+            @Qualifier("batchDataSourceProperties") DataSourceProperties batchDataSourceProperties) {
+        return batchDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @BatchTransactionManager
+    public PlatformTransactionManager batchTransactionManager(@BatchDataSource DataSource batchDataSource) {
+        return new JdbcTransactionManager(batchDataSource);
+    }
+
+    /**
+     * Statements of the upload jobs, on the batch pool. A statement running longer than
+     * {@code query-timeout} is cancelled and fails its chunk instead of holding locks on
+     * the result tables.
+     */
+    @Bean
+    public JdbcTemplate batchJdbcTemplate(
+            @BatchDataSource DataSource batchDataSource,
+            @Value("${batch.datasource.query-timeout:60s}") Duration queryTimeout) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(batchDataSource);
+        jdbcTemplate.setQueryTimeout((int) queryTimeout.toSeconds());
+        log.info("Batch statements time out after {}", queryTimeout);
+        return jdbcTemplate;
+    }
+
+    @Bean
+    public NamedParameterJdbcTemplate batchNamedParameterJdbcTemplate(JdbcTemplate batchJdbcTemplate) {
+        return new NamedParameterJdbcTemplate(batchJdbcTemplate);
+    }
+}
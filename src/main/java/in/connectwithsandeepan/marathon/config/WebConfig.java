@@ -1,8 +1,10 @@
 package in.connectwithsandeepan.marathon.config;
 
 import in.connectwithsandeepan.marathon.interceptor.HttpInterceptor;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,11 +13,24 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final HttpInterceptor httpInterceptor;
+    private final EntityManagerFactory entityManagerFactory;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(httpInterceptor)
                 .addPathPatterns("/api/**") // apply to specific paths
                 .excludePathPatterns("/api/auth/**"); // exclude if needed
+
+        // Open session in view, as Boot would register it, except for the results endpoints: they
+        // return projections read in their own transaction, so the connection goes back to the pool
+        // before the response is written
+        OpenEntityManagerInViewInterceptor openEntityManagerInView = new OpenEntityManagerInViewInterceptor();
+        openEntityManagerInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openEntityManagerInView)
+                .excludePathPatterns(
+                        "/api/v1/events/*/results",
+                        "/api/v1/events/*/results/page",
+                        "/api/v1/events/*/results/export",
+                        "/api/v1/events/*/results/{resultId:\\d+}");
     }
 }
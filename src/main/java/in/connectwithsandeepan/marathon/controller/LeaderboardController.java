@@ -0,0 +1,123 @@
+package in.connectwithsandeepan.marathon.controller;
+
+import in.connectwithsandeepan.marathon.dto.LeaderboardDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardStandingDto;
+import in.connectwithsandeepan.marathon.exception.ErrorResponse;
+import in.connectwithsandeepan.marathon.service.LeaderboardScope;
+import in.connectwithsandeepan.marathon.service.LeaderboardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@Tag(name = "Leaderboard", description = "API endpoints for chip time standings of marathon events")
+@RestController
+@RequestMapping("/api/v1/events/{eventId}/leaderboard")
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardController {
+    private final LeaderboardService leaderboardService;
+
+    @Operation(
+            summary = "Get the fastest runners of a field",
+            description = "Fetches the fastest runners of a race category by chip time, optionally only those of one " +
+                    "gender and age category. Runners with the same chip time share a rank."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Leaderboard retrieved successfully",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = LeaderboardDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Event or category not found",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @GetMapping
+    public ResponseEntity<LeaderboardDto> getTop(
+            @Parameter(description = "Event ID", required = true, example = "1")
+            @PathVariable Long eventId,
+            @Parameter(description = "Race category name", required = true, example = "Half Marathon")
+            @RequestParam String category,
+            @Parameter(description = "Gender", example = "F")
+            @RequestParam(required = false) String gender,
+            @Parameter(description = "Age category", example = "18-35")
+            @RequestParam(required = false) String ageCategory,
+            @Parameter(description = "Number of runners, at most " + LeaderboardService.MAX_ENTRIES, example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        LeaderboardDto leaderboard = leaderboardService.getTop(eventId, category, gender, ageCategory, limit);
+        return ResponseEntity.ok(leaderboard);
+    }
+
+    @Operation(
+            summary = "Get where a runner stands",
+            description = "Fetches the rank and percentile of the runner with a bib number in their race category, " +
+                    "or among the runners of their gender or age category in it, with the runners around them."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Standing retrieved successfully",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = LeaderboardStandingDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Event or bib number not found",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @GetMapping("/bibs/{bibNumber}")
+    public ResponseEntity<LeaderboardStandingDto> getStanding(
+            @Parameter(description = "Event ID", required = true, example = "1")
+            @PathVariable Long eventId,
+            @Parameter(description = "Bib number", required = true, example = "MUM001")
+            @PathVariable String bibNumber,
+            @Parameter(description = "Field the runner is ranked in, within their race category")
+            @RequestParam(defaultValue = "CATEGORY") LeaderboardScope scope,
+            @Parameter(description = "Runners ahead and behind to include, at most " + LeaderboardService.MAX_NEIGHBOURS,
+                    example = "5")
+            @RequestParam(defaultValue = "5") int neighbours) {
+        LeaderboardStandingDto standing = leaderboardService.getStanding(eventId, bibNumber, scope, neighbours);
+        return ResponseEntity.ok(standing);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handelEntityNotFoundException(EntityNotFoundException ex, HttpServletRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                "Not Found",
+                ex.getMessage(),
+                request.getRequestURI(),
+                null,
+                request.getMethod()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+}
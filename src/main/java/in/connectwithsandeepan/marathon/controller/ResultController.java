@@ -1,9 +1,14 @@
 package in.connectwithsandeepan.marathon.controller;
 
+import in.connectwithsandeepan.marathon.dto.ResultPageDto;
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultView;
 import in.connectwithsandeepan.marathon.entity.Result;
 import in.connectwithsandeepan.marathon.exception.ErrorResponse;
+import in.connectwithsandeepan.marathon.service.ResultExportService;
+import in.connectwithsandeepan.marathon.service.ResultService;
 import in.connectwithsandeepan.marathon.service.ResultServiceImpl;
+import in.connectwithsandeepan.marathon.service.ResultSort;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -31,6 +37,7 @@ import java.util.List;
 @Slf4j
 public class ResultController {
     private final ResultServiceImpl resultService;
+    private final ResultExportService resultExportService;
 
 
     @Operation(
@@ -97,7 +104,7 @@ public class ResultController {
                     description = "Result retrieved successfully",
                     content = @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = Result.class)
+                            schema = @Schema(implementation = ResultView.class)
                     )
             ),
             @ApiResponse(
@@ -110,21 +117,22 @@ public class ResultController {
             )
     })
     @GetMapping("/{resultId}")
-    public ResponseEntity<Result> getResultById(
+    public ResponseEntity<ResultView> getResultById(
             @Parameter(description = "Result ID", required = true, example = "1")
             @PathVariable Long resultId) {
-        Result resultById = resultService.getResultById(resultId);
+        ResultView resultById = resultService.getResultById(resultId);
         return ResponseEntity.ok(resultById);
     }
 
-    @Operation(summary = "Get all results for event", description = "Fetches all results for a specific event")
+    @Operation(summary = "Get all results for event", description = "Fetches all results for a specific event. " +
+            "Large events should be read page by page with the /page endpoint, or whole with the /export endpoint.")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Results retrieved successfully",
                     content = @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(type = "array", implementation = Result.class)
+                            schema = @Schema(type = "array", implementation = ResultView.class)
                     )
             ),
             @ApiResponse(
@@ -137,13 +145,107 @@ public class ResultController {
             )
     })
     @GetMapping()
-    public ResponseEntity<List<Result>> getAllResults(
+    public ResponseEntity<List<ResultView>> getAllResults(
             @Parameter(description = "Event ID", required = true, example = "1")
             @PathVariable Long eventId) {
-        List<Result> results = resultService.getAllResultsByEventId(eventId);
+        List<ResultView> results = resultService.getAllResultsByEventId(eventId);
         return ResponseEntity.ok(results);
     }
 
+    @Operation(
+            summary = "Get a page of results for event",
+            description = "Fetches the results of an event one page at a time, ordered by chip time or by overall rank " +
+                    "and optionally filtered by race category, gender and age category. Pass the nextCursor of a page " +
+                    "as cursor, with the same sort and filters, to get the next page."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page retrieved successfully",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ResultPageDto.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid cursor",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Event or category not found",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @GetMapping("/page")
+    public ResponseEntity<ResultPageDto> getResultPage(
+            @Parameter(description = "Event ID", required = true, example = "1")
+            @PathVariable Long eventId,
+            @Parameter(description = "Order of the results; results without a numeric rank come last by RANK")
+            @RequestParam(defaultValue = "CHIP_TIME") ResultSort sort,
+            @Parameter(description = "Race category name", example = "Half Marathon")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Gender", example = "M")
+            @RequestParam(required = false) String gender,
+            @Parameter(description = "Age category", example = "18-35")
+            @RequestParam(required = false) String ageCategory,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Results per page, at most " + ResultService.MAX_PAGE_SIZE, example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        ResultPageDto page = resultService.getResultPage(eventId, sort, category, gender, ageCategory, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(
+            summary = "Export all results for event",
+            description = "Streams every result of an event, with its checkpoints and category, as one JSON array in " +
+                    "chip time order. The response is written while the results are read, so it starts right away " +
+                    "and its size is not limited by server memory."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Results streamed successfully",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(type = "array", implementation = ResultView.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Event not found",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Too many exports running",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportResults(
+            @Parameter(description = "Event ID", required = true, example = "1")
+            @PathVariable Long eventId) {
+        log.info("Request to export results of event id: {}", eventId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resultExportService.exportResults(eventId));
+    }
+
     @Operation(summary = "Delete a result by id", description = "Deletes a result from the event by its unique identifier")
     @ApiResponses(value = {
             @ApiResponse(
@@ -0,0 +1,15 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalTime;
+
+@Schema(description = "Race category of a result")
+public record CategoryView(
+        @Schema(description = "Category ID", example = "1")
+        Long id,
+        @Schema(description = "Category name", example = "Half Marathon")
+        String categoryName,
+        @Schema(description = "Flag-off time of the category", example = "06:00:00")
+        LocalTime flagOffTime) {
+}
@@ -0,0 +1,18 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalTime;
+
+@Schema(description = "Checkpoint time of a result")
+public record CheckpointView(
+        @JsonIgnore
+        Long resultId,
+        @Schema(description = "Checkpoint ID", example = "1")
+        Long id,
+        @Schema(description = "Checkpoint number", example = "1")
+        int checkpointNumber,
+        @Schema(description = "Time at the checkpoint", example = "00:25:30")
+        LocalTime time) {
+}
@@ -13,8 +13,10 @@ import lombok.NoArgsConstructor;
 public class ExcelProcessStartResponseDto {
     @Schema(description = "Indicates whether the job was started successfully", example = "Job started successfully")
     private String message;
-    @Schema(description = "Indicates the status of the job", example = "Job is running")
+    @Schema(description = "Indicates the status of the job, or UNCHANGED if the file was already ingested and no job was started", example = "Job is running")
     private String status;
-    @Schema(description = "Indicates the number of results that were deleted before starting the job", example = "10")
+    @Schema(description = "Number of existing results the job deletes, before ingesting the file (REPLACE) or when it swaps the staged rows in (STAGED)", example = "10")
     private String deletedResultsCount;
+    @Schema(description = "ID of the started job, used with the status endpoint", example = "42")
+    private Long jobId;
 }
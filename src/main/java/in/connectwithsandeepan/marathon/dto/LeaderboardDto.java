@@ -0,0 +1,19 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "The fastest runners of a field")
+public record LeaderboardDto(
+        @Schema(description = "Race category", example = "Half Marathon")
+        String category,
+        @Schema(description = "Gender, or null for all", example = "F")
+        String gender,
+        @Schema(description = "Age category, or null for all", example = "18-35")
+        String ageCategory,
+        @Schema(description = "Number of runners in the field", example = "1250")
+        int fieldSize,
+        @Schema(description = "Fastest runners first")
+        List<LeaderboardEntryDto> entries) {
+}
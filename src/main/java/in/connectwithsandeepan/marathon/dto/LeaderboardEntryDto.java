@@ -0,0 +1,23 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalTime;
+
+@Schema(description = "A runner on a leaderboard")
+public record LeaderboardEntryDto(
+        @Schema(description = "Rank by chip time; runners with the same chip time share a rank", example = "3")
+        int rank,
+        @Schema(description = "Result ID", example = "1")
+        Long resultId,
+        @Schema(description = "Bib number", example = "MUM001")
+        String bibNumber,
+        @Schema(description = "Participant name", example = "Sandeepan Banerjee")
+        String participantName,
+        @Schema(description = "Gender", example = "M")
+        String gender,
+        @Schema(description = "Age category", example = "18-35")
+        String ageCategory,
+        @Schema(description = "Chip time", example = "01:15:20")
+        LocalTime chipTime) {
+}
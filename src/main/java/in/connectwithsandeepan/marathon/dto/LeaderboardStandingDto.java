@@ -0,0 +1,23 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Where a runner stands in a field")
+public record LeaderboardStandingDto(
+        @Schema(description = "Race category", example = "Half Marathon")
+        String category,
+        @Schema(description = "Gender, or null for all", example = "F")
+        String gender,
+        @Schema(description = "Age category, or null for all", example = "18-35")
+        String ageCategory,
+        @Schema(description = "Number of runners in the field", example = "1250")
+        int fieldSize,
+        @Schema(description = "The runner, with their rank in the field")
+        LeaderboardEntryDto runner,
+        @Schema(description = "Share of the field with a slower chip time, in percent", example = "87.5")
+        double percentile,
+        @Schema(description = "Runners just ahead of and behind the runner, in finishing order, the runner included")
+        List<LeaderboardEntryDto> neighbours) {
+}
@@ -0,0 +1,45 @@
+package in.connectwithsandeepan.marathon.dto;
+
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Schema(description = "Rows of an uploaded results file that the ingest job would reject")
+public class ResultFileValidationReportDto {
+    @Schema(description = "Data rows checked (header excluded)", example = "50000")
+    private long rowsChecked;
+    @Schema(description = "Rows that would be written", example = "49988")
+    private long validRows;
+    @Schema(description = "Rows that would be rejected", example = "12")
+    private long invalidRows;
+    @Schema(description = "Whether the job would fail: a row it cannot skip, or more skipped rows than its skip limit", example = "false")
+    private boolean jobWouldFail;
+    @Schema(description = "Time taken to check the file in milliseconds", example = "850")
+    private long durationMs;
+    @Schema(description = "Whether the error list was cut short; invalidRows still counts every row", example = "false")
+    private boolean truncated;
+    @Schema(description = "One entry per invalid row, in row order")
+    private List<RowError> errors;
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Schema(description = "Why one row would be rejected")
+    public static class RowError {
+        @Schema(description = "Row number in the sheet, header is row 1", example = "17")
+        private int row;
+        @Schema(description = "Bib number of the row, if any", example = "M015")
+        private String bibNumber;
+        @Schema(description = "The error the ingest job would report", example = "Invalid category: Half Marathon 21K")
+        private String message;
+        @Schema(description = "True if the job would skip the row and go on, false if the row would stop the job", example = "true")
+        private boolean skippable;
+    }
+}
@@ -0,0 +1,20 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Schema(description = "One page of an event's results")
+public class ResultPageDto {
+    @Schema(description = "Results of this page, in the requested order")
+    private List<ResultView> results;
+    @Schema(description = "Pass as cursor to get the next page, with the same sort and filters; null on the last page",
+            example = "QzozNjAwMDAwMDAwMDAwOjQy")
+    private String nextCursor;
+}
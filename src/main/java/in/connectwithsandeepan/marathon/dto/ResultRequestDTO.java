@@ -1,5 +1,6 @@
 package in.connectwithsandeepan.marathon.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -60,4 +61,8 @@ public class ResultRequestDTO {
     @Schema(description = "List of checkpoint times during the race")
     @Valid
     private List<CheckpointRequestDTO> checkpointTimes;
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Integer rowNumber;
 }
\ No newline at end of file
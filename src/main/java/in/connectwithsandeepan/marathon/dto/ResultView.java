@@ -0,0 +1,45 @@
+package in.connectwithsandeepan.marathon.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A result as the public API returns it, read with a constructor projection instead of
+ * loading the entity. The query fills in everything but the checkpoints, which are
+ * queried separately and added to {@link #checkpointTimes()}.
+ */
+@Schema(description = "Result of a participant")
+public record ResultView(
+        @Schema(description = "Result ID", example = "1")
+        Long id,
+        @Schema(description = "Bib number", example = "MUM001")
+        String bibNumber,
+        @Schema(description = "Participant name", example = "Sandeepan Banerjee")
+        String participantName,
+        @Schema(description = "Gender", example = "M")
+        String gender,
+        @Schema(description = "Age category", example = "18-35")
+        String ageCategory,
+        @Schema(description = "Overall rank in the race", example = "15")
+        String overAllRank,
+        @Schema(description = "Rank within gender category", example = "12")
+        String genderRank,
+        @Schema(description = "Rank within age category", example = "8")
+        String ageCategoryRank,
+        @Schema(description = "Chip time", example = "01:15:20")
+        LocalTime chipTime,
+        @Schema(description = "Gun time", example = "01:15:50")
+        LocalTime gunTime,
+        List<CheckpointView> checkpointTimes,
+        CategoryView category) {
+
+    public ResultView(Long id, String bibNumber, String participantName, String gender, String ageCategory,
+                      String overAllRank, String genderRank, String ageCategoryRank, LocalTime chipTime,
+                      LocalTime gunTime, Long categoryId, String categoryName, LocalTime flagOffTime) {
+        this(id, bibNumber, participantName, gender, ageCategory, overAllRank, genderRank, ageCategoryRank,
+                chipTime, gunTime, new ArrayList<>(), new CategoryView(categoryId, categoryName, flagOffTime));
+    }
+}
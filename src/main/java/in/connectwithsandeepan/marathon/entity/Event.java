@@ -38,6 +38,14 @@ public class Event {
 
     private String imageUrl;
 
+    /**
+     * SHA-256 of the file of the last upload job that completed, or {@code null} when
+     * the results may no longer match any uploaded file.
+     */
+    @JsonIgnore
+    @Column(length = 64)
+    private String lastIngestSha256;
+
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<EventCategory> eventCategories;
 
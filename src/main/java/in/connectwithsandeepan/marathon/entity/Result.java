@@ -2,6 +2,7 @@ package in.connectwithsandeepan.marathon.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,6 +19,11 @@ import java.util.List;
 @Setter
 @Table(uniqueConstraints = {
         @UniqueConstraint(name = "uk_event_bib_number", columnNames = {"event_id", "bib_number"})
+}, indexes = { // keyset pages of the results endpoint, with and without a category filter
+        @Index(name = "idx_result_event_chip_time", columnList = "event_id, chip_time, id"),
+        @Index(name = "idx_result_event_category_chip_time", columnList = "event_id, event_category_id, chip_time, id"),
+        @Index(name = "idx_result_event_position", columnList = "event_id, over_all_position, id"),
+        @Index(name = "idx_result_event_category_position", columnList = "event_id, event_category_id, over_all_position, id")
 })
 public class Result {
 
@@ -38,6 +44,14 @@ public class Result {
     private String genderRank;
     private String ageCategoryRank;
 
+    /**
+     * {@link #overAllRank} as a number, to order results by rank; {@code null} when the
+     * rank is not a number, e.g. for a DNF. Set with the rank.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private Integer overAllPosition;
+
     @Transient
     @JsonIgnore
     private String raceCategory;
@@ -48,6 +62,13 @@ public class Result {
     @Column(nullable = false)
     private LocalTime gunTime;
 
+    /**
+     * Hash of the uploaded row this result was stored from, used by delta uploads to
+     * detect unchanged rows. {@code null} for results not stored by an upload.
+     */
+    @JsonIgnore
+    private Long contentHash;
+
     @OneToMany(mappedBy = "result", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Checkpoint> checkpointTimes = new ArrayList<>();
 
@@ -59,4 +80,24 @@ public class Result {
     @ManyToOne()
     @JoinColumn(name = "event_category_id", nullable = false)
     private EventCategory category;
+
+    public void setOverAllRank(String overAllRank) {
+        this.overAllRank = overAllRank;
+        this.overAllPosition = positionOf(overAllRank);
+    }
+
+    /**
+     * @return the rank as a number, or {@code null} if it is not a positive whole number
+     */
+    public static Integer positionOf(String rank) {
+        if (rank == null) {
+            return null;
+        }
+        String digits = rank.trim();
+        if (digits.isEmpty() || digits.length() > 9 || !digits.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        int position = Integer.parseInt(digits);
+        return position > 0 ? position : null;
+    }
 }
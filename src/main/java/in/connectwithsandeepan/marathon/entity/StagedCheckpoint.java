@@ -0,0 +1,33 @@
+package in.connectwithsandeepan.marathon.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * A checkpoint time of a {@link StagedResult}.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "checkpoint_staging", indexes = @Index(name = "idx_checkpoint_staging_job", columnList = "job_instance_id"))
+public class StagedCheckpoint {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long jobInstanceId;
+
+    private int checkpointNumber;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(nullable = false)
+    private Long resultId;
+}
@@ -0,0 +1,58 @@
+package in.connectwithsandeepan.marathon.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+/**
+ * A result written by a staged upload, held apart from the live results until its job
+ * completes. Rows belong to a job instance, so a restarted job keeps what it staged. Ids
+ * come from the live sequences and are kept when the rows are swapped in. The ingest
+ * writes and swaps the table with JDBC; the mapping is for the schema and lookups.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "result_staging",
+        uniqueConstraints = @UniqueConstraint(name = "uk_result_staging_job_bib", columnNames = {"job_instance_id", "bib_number"}),
+        indexes = @Index(name = "idx_result_staging_event", columnList = "event_id"))
+public class StagedResult {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long jobInstanceId;
+
+    @Column(nullable = false)
+    private String bibNumber;
+
+    @Column(nullable = false)
+    private String participantName;
+
+    private String gender;
+    private String ageCategory;
+
+    private String overAllRank;
+    private String genderRank;
+    private String ageCategoryRank;
+    private Integer overAllPosition;
+
+    @Column(nullable = false)
+    private LocalTime chipTime;
+
+    @Column(nullable = false)
+    private LocalTime gunTime;
+
+    private Long contentHash;
+
+    @Column(nullable = false)
+    private Long eventId;
+
+    @Column(nullable = false)
+    private Long eventCategoryId;
+}
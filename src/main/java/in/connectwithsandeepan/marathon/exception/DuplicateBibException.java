@@ -0,0 +1,7 @@
+package in.connectwithsandeepan.marathon.exception;
+
+public class DuplicateBibException extends ResultValidationException {
+    public DuplicateBibException(String message) {
+        super(message);
+    }
+}
@@ -28,6 +28,27 @@ public class GlobalExceptionHandler {
                 request, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleIngestQueueFull(IngestQueueFullException ex, HttpServletRequest request) {
+        return buildErrorResponse("Service Unavailable",
+                ex.getMessage(),
+                request, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TooManyExportsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyExports(TooManyExportsException ex, HttpServletRequest request) {
+        return buildErrorResponse("Service Unavailable",
+                ex.getMessage(),
+                request, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex, HttpServletRequest request) {
+        return buildErrorResponse("Bad Request",
+                ex.getMessage(),
+                request, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception ex, HttpServletRequest request) {
         return buildErrorResponse("Internal Server Error",
@@ -0,0 +1,7 @@
+package in.connectwithsandeepan.marathon.exception;
+
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
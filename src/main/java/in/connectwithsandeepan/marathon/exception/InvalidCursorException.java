@@ -0,0 +1,7 @@
+package in.connectwithsandeepan.marathon.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
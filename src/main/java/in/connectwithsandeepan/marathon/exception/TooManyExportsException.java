@@ -0,0 +1,7 @@
+package in.connectwithsandeepan.marathon.exception;
+
+public class TooManyExportsException extends RuntimeException {
+    public TooManyExportsException(String message) {
+        super(message);
+    }
+}
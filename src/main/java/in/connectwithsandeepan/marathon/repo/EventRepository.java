@@ -1,9 +1,21 @@
 package in.connectwithsandeepan.marathon.repo;
 
 import in.connectwithsandeepan.marathon.entity.Event;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+
+    @Query("SELECT e.lastIngestSha256 FROM Event e WHERE e.id = :eventId")
+    String findLastIngestSha256(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Event e SET e.lastIngestSha256 = :sha256 WHERE e.id = :eventId")
+    void updateLastIngestSha256(@Param("eventId") Long eventId, @Param("sha256") String sha256);
 }
@@ -0,0 +1,28 @@
+package in.connectwithsandeepan.marathon.repo;
+
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Keyset pages of an event's results. Each query reads the ids of one page from an index
+ * on (event_id[, event_category_id], sort column, id), starting after the last row of the
+ * previous page; {@link ResultRepository#findViewsByIds} then loads the page. A filter
+ * left {@code null} is not part of the query, so each combination of filters gets its own
+ * statement and the category filter, when given, picks the index that leads with it.
+ */
+public interface ResultPageRepository {
+
+    List<Long> findPageIdsByChipTime(Long eventId, Long categoryId, String gender, String ageCategory,
+                                     LocalTime chipTime, Long id, Limit limit);
+
+    List<Long> findPageIdsByPosition(Long eventId, Long categoryId, String gender, String ageCategory,
+                                     Integer position, Long id, Limit limit);
+
+    /**
+     * Page of the results without a numeric rank, which follow the ranked ones.
+     */
+    List<Long> findUnrankedPageIds(Long eventId, Long categoryId, String gender, String ageCategory,
+                                   Long id, Limit limit);
+}
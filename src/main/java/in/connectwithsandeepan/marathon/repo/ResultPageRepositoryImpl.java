@@ -0,0 +1,79 @@
+package in.connectwithsandeepan.marathon.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Builds the JPQL of a {@link ResultPageRepository} query from the filters that are set.
+ */
+public class ResultPageRepositoryImpl implements ResultPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findPageIdsByChipTime(Long eventId, Long categoryId, String gender, String ageCategory,
+                                            LocalTime chipTime, Long id, Limit limit) {
+        return pageIds(eventId, categoryId, gender, ageCategory,
+                "r.chipTime >= :chipTime AND (r.chipTime > :chipTime OR r.id > :id)", "r.chipTime, r.id", limit)
+                .setParameter("chipTime", chipTime)
+                .setParameter("id", id)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findPageIdsByPosition(Long eventId, Long categoryId, String gender, String ageCategory,
+                                            Integer position, Long id, Limit limit) {
+        return pageIds(eventId, categoryId, gender, ageCategory,
+                "r.overAllPosition >= :position AND (r.overAllPosition > :position OR r.id > :id)",
+                "r.overAllPosition, r.id", limit)
+                .setParameter("position", position)
+                .setParameter("id", id)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findUnrankedPageIds(Long eventId, Long categoryId, String gender, String ageCategory,
+                                          Long id, Limit limit) {
+        return pageIds(eventId, categoryId, gender, ageCategory,
+                "r.overAllPosition IS NULL AND r.id > :id", "r.id", limit)
+                .setParameter("id", id)
+                .getResultList();
+    }
+
+    private TypedQuery<Long> pageIds(Long eventId, Long categoryId, String gender, String ageCategory,
+                                     String after, String orderBy, Limit limit) {
+        StringBuilder jpql = new StringBuilder("SELECT r.id FROM Result r WHERE r.event.id = :eventId");
+        if (categoryId != null) {
+            jpql.append(" AND r.category.id = :categoryId");
+        }
+        if (gender != null) {
+            jpql.append(" AND r.gender = :gender");
+        }
+        if (ageCategory != null) {
+            jpql.append(" AND r.ageCategory = :ageCategory");
+        }
+        jpql.append(" AND ").append(after).append(" ORDER BY ").append(orderBy);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class)
+                .setParameter("eventId", eventId);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        if (gender != null) {
+            query.setParameter("gender", gender);
+        }
+        if (ageCategory != null) {
+            query.setParameter("ageCategory", ageCategory);
+        }
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query;
+    }
+}
@@ -1,6 +1,9 @@
 package in.connectwithsandeepan.marathon.repo;
 
+import in.connectwithsandeepan.marathon.dto.CheckpointView;
+import in.connectwithsandeepan.marathon.dto.ResultView;
 import in.connectwithsandeepan.marathon.entity.Result;
+import in.connectwithsandeepan.marathon.service.LeaderboardRow;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -10,23 +13,46 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ResultRepository extends JpaRepository<Result, Long> {
+public interface ResultRepository extends JpaRepository<Result, Long>, ResultPageRepository {
      List<Result> findByEventId(Long eventId);
 
 
-     @Query("SELECT r FROM Result r " +
-             "LEFT JOIN FETCH r.category " +
-             "LEFT JOIN FETCH r.checkpointTimes " +
-             "WHERE r.event.id = :eventId")
-     List<Result> findAllByEventIdWithCategoryAndCheckpoints(@Param("eventId") Long eventId);
+    /*
+     * Read model of the public results API: results as ResultView projections, without
+     * checkpoints, which findCheckpointViews reads for a batch of results.
+     */
+
+    String RESULT_VIEW = "SELECT new in.connectwithsandeepan.marathon.dto.ResultView(r.id, r.bibNumber, " +
+            "r.participantName, r.gender, r.ageCategory, r.overAllRank, r.genderRank, r.ageCategoryRank, " +
+            "r.chipTime, r.gunTime, c.id, c.categoryName, c.flagOffTime) FROM Result r JOIN r.category c ";
+
+    @Query(RESULT_VIEW + "WHERE r.event.id = :eventId")
+    List<ResultView> findViewsByEventId(@Param("eventId") Long eventId);
+
+    @Query(RESULT_VIEW + "WHERE r.id = :id")
+    Optional<ResultView> findViewById(@Param("id") Long id);
+
+    @Query(RESULT_VIEW + "WHERE r.id IN :ids")
+    List<ResultView> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new in.connectwithsandeepan.marathon.dto.CheckpointView(cp.result.id, cp.id, cp.checkpointNumber, cp.time) " +
+            "FROM Checkpoint cp WHERE cp.result.id IN :resultIds ORDER BY cp.checkpointNumber")
+    List<CheckpointView> findCheckpointViews(@Param("resultIds") Collection<Long> resultIds);
 
     boolean existsByEventIdAndBibNumber(Long eventId, String bibNumber);
 
     boolean existsByEvent_IdAndBibNumber(Long eventId, String bibNumber);
 
+    @Query("SELECT new in.connectwithsandeepan.marathon.service.LeaderboardRow(r.id, r.bibNumber, r.participantName, " +
+            "r.gender, r.ageCategory, c.categoryName, r.chipTime) " +
+            "FROM Result r JOIN r.category c WHERE r.event.id = :eventId ORDER BY r.chipTime, r.id")
+    List<LeaderboardRow> findLeaderboardRowsByEventId(@Param("eventId") Long eventId);
+
     long countByEventId(Long eventId);
 
     @Transactional
@@ -18,6 +18,7 @@ import java.util.List;
 public class EventServiceImpl implements EventService {
     public static final String EVENT_NOT_FOUND_WITH_ID = "Event not found with id: ";
     private final EventRepository eventRepository;
+    private final LeaderboardService leaderboardService;
 
     public Event createEvent(CreateEventRequestDto request) {
         log.debug("Creating event: {}", request);
@@ -95,6 +96,7 @@ public class EventServiceImpl implements EventService {
             throw new EntityNotFoundException(EVENT_NOT_FOUND_WITH_ID + id);
         }
         eventRepository.deleteById(id);
+        leaderboardService.evict(id);
         log.info("Event deleted with id: {}", id);
     }
 
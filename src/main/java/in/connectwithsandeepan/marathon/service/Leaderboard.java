@@ -0,0 +1,211 @@
+package in.connectwithsandeepan.marathon.service;
+
+import in.connectwithsandeepan.marathon.dto.LeaderboardDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardEntryDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardStandingDto;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chip time standings of one event, read once and then queried without the database.
+ * The results are held in parallel arrays in chip time order, ties broken by id. Every
+ * field a runner can be ranked in (race category, optionally narrowed by gender, age
+ * category or both) is an ascending array of positions in that order, so it is sorted by
+ * chip time too: a runner's rank, neighbours and percentile in a field are found by binary
+ * search, and the first n of a field are its first n positions.
+ * <p>
+ * Immutable once built, so it is safe to query from any thread.
+ */
+public final class Leaderboard {
+
+    private static final int NANOS_PER_MILLI = 1_000_000;
+
+    private final long[] resultIds;
+    private final int[] chipMillis;
+    private final String[] bibNumbers;
+    private final String[] participantNames;
+    private final String[] genders;
+    private final String[] ageCategories;
+    private final String[] categoryNames;
+    private final Map<String, Integer> positionsByBib;
+    private final Map<Field, int[]> fields;
+    private final Set<String> eventCategories;
+
+    /**
+     * A field of runners: a race category and, unless {@code null}, a gender and an age category.
+     */
+    record Field(String category, String gender, String ageCategory) {
+    }
+
+    private Leaderboard(int size, Set<String> eventCategories) {
+        this.resultIds = new long[size];
+        this.chipMillis = new int[size];
+        this.bibNumbers = new String[size];
+        this.participantNames = new String[size];
+        this.genders = new String[size];
+        this.ageCategories = new String[size];
+        this.categoryNames = new String[size];
+        this.positionsByBib = new HashMap<>(Math.max(16, size * 2));
+        this.fields = new HashMap<>();
+        this.eventCategories = eventCategories;
+    }
+
+    /**
+     * @param rows            the results of the event, in chip time order, ties by id
+     * @param eventCategories the names of all race categories of the event, with or without results
+     */
+    static Leaderboard of(List<LeaderboardRow> rows, Collection<String> eventCategories) {
+        Leaderboard leaderboard = new Leaderboard(rows.size(), Set.copyOf(eventCategories));
+        for (int i = 0; i < rows.size(); i++) {
+            LeaderboardRow row = rows.get(i);
+            leaderboard.resultIds[i] = row.id();
+            leaderboard.chipMillis[i] = (int) (row.chipTime().toNanoOfDay() / NANOS_PER_MILLI);
+            leaderboard.bibNumbers[i] = row.bibNumber();
+            leaderboard.participantNames[i] = row.participantName();
+            leaderboard.genders[i] = row.gender();
+            leaderboard.ageCategories[i] = row.ageCategory();
+            leaderboard.categoryNames[i] = row.categoryName();
+            leaderboard.positionsByBib.put(row.bibNumber(), i);
+        }
+        leaderboard.buildFields();
+        return leaderboard;
+    }
+
+    // sizes every field first, then fills them in order, so positions stay ascending
+    private void buildFields() {
+        Map<Field, int[]> counts = new HashMap<>();
+        for (int i = 0; i < resultIds.length; i++) {
+            for (Field field : fieldsOf(i)) {
+                counts.computeIfAbsent(field, f -> new int[1])[0]++;
+            }
+        }
+        counts.forEach((field, count) -> {
+            fields.put(field, new int[count[0]]);
+            count[0] = 0;
+        });
+        for (int i = 0; i < resultIds.length; i++) {
+            for (Field field : fieldsOf(i)) {
+                fields.get(field)[counts.get(field)[0]++] = i;
+            }
+        }
+    }
+
+    private List<Field> fieldsOf(int position) {
+        String category = categoryNames[position];
+        String gender = genders[position];
+        String ageCategory = ageCategories[position];
+        List<Field> of = new ArrayList<>(4);
+        of.add(new Field(category, null, null));
+        if (gender != null) {
+            of.add(new Field(category, gender, null));
+        }
+        if (ageCategory != null) {
+            of.add(new Field(category, null, ageCategory));
+        }
+        if (gender != null && ageCategory != null) {
+            of.add(new Field(category, gender, ageCategory));
+        }
+        return of;
+    }
+
+    public int size() {
+        return resultIds.length;
+    }
+
+    public boolean hasCategory(String category) {
+        return eventCategories.contains(category);
+    }
+
+    /**
+     * @return the first {@code limit} runners of the field, empty if nobody is in it
+     */
+    public LeaderboardDto top(String category, String gender, String ageCategory, int limit) {
+        int[] members = fields.getOrDefault(new Field(category, gender, ageCategory), new int[0]);
+        return new LeaderboardDto(category, gender, ageCategory, members.length,
+                entries(members, 0, Math.min(limit, members.length)));
+    }
+
+    /**
+     * @param neighbours how many runners ahead and behind to include
+     * @return the runner's rank and percentile in the {@code scope} field of their own race
+     * category, or {@code null} if the event has no result with {@code bibNumber}
+     */
+    public LeaderboardStandingDto standingOf(String bibNumber, LeaderboardScope scope, int neighbours) {
+        Integer position = positionsByBib.get(bibNumber);
+        if (position == null) {
+            return null;
+        }
+        Field field = switch (scope) {
+            case CATEGORY -> new Field(categoryNames[position], null, null);
+            case GENDER -> new Field(categoryNames[position], genders[position], null);
+            case AGE_CATEGORY -> new Field(categoryNames[position], null, ageCategories[position]);
+        };
+        // a runner without a gender or age category is ranked in the whole category
+        int[] members = fields.get(field);
+        int index = Arrays.binarySearch(members, position);
+        int millis = chipMillis[position];
+        int slower = members.length - firstSlowerThan(members, millis);
+        double percentile = Math.round(1000.0 * slower / members.length) / 10.0;
+
+        return new LeaderboardStandingDto(field.category(), field.gender(), field.ageCategory(), members.length,
+                entry(position, 1 + firstNotFasterThan(members, millis)), percentile,
+                entries(members, Math.max(0, index - neighbours), Math.min(members.length, index + neighbours + 1)));
+    }
+
+    /**
+     * Ranks {@code members[from..to)}: the first by binary search, the rest by comparing
+     * each chip time with the one before.
+     */
+    private List<LeaderboardEntryDto> entries(int[] members, int from, int to) {
+        List<LeaderboardEntryDto> entries = new ArrayList<>(Math.max(0, to - from));
+        int rank = 0;
+        for (int i = from; i < to; i++) {
+            int position = members[i];
+            if (i == from) {
+                rank = 1 + firstNotFasterThan(members, chipMillis[position]);
+            } else if (chipMillis[position] != chipMillis[members[i - 1]]) {
+                rank = i + 1;
+            }
+            entries.add(entry(position, rank));
+        }
+        return entries;
+    }
+
+    private LeaderboardEntryDto entry(int position, int rank) {
+        return new LeaderboardEntryDto(rank, resultIds[position], bibNumbers[position], participantNames[position],
+                genders[position], ageCategories[position],
+                LocalTime.ofNanoOfDay((long) chipMillis[position] * NANOS_PER_MILLI));
+    }
+
+    // index of the first member with a chip time of at least millis
+    private int firstNotFasterThan(int[] members, int millis) {
+        return search(members, millis, false);
+    }
+
+    // index of the first member with a chip time above millis
+    private int firstSlowerThan(int[] members, int millis) {
+        return search(members, millis, true);
+    }
+
+    private int search(int[] members, int millis, boolean pastEqual) {
+        int low = 0;
+        int high = members.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int time = chipMillis[members[mid]];
+            if (time < millis || pastEqual && time == millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,10 @@
+package in.connectwithsandeepan.marathon.service;
+
+import java.time.LocalTime;
+
+/**
+ * Columns of a stored result that a {@link Leaderboard} ranks and shows.
+ */
+public record LeaderboardRow(Long id, String bibNumber, String participantName, String gender, String ageCategory,
+                             String categoryName, LocalTime chipTime) {
+}
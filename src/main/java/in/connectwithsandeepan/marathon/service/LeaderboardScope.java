@@ -0,0 +1,19 @@
+package in.connectwithsandeepan.marathon.service;
+
+/**
+ * Field a runner is ranked in on a leaderboard, always within the runner's race category.
+ */
+public enum LeaderboardScope {
+    /**
+     * Everyone in the race category.
+     */
+    CATEGORY,
+    /**
+     * Runners of the same gender in the race category.
+     */
+    GENDER,
+    /**
+     * Runners of the same age category in the race category.
+     */
+    AGE_CATEGORY
+}
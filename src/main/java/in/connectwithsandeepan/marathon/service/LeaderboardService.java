@@ -0,0 +1,185 @@
+package in.connectwithsandeepan.marathon.service;
+
+import in.connectwithsandeepan.marathon.dto.LeaderboardDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardStandingDto;
+import in.connectwithsandeepan.marathon.entity.EventCategory;
+import in.connectwithsandeepan.marathon.repo.EventCategoryRepository;
+import in.connectwithsandeepan.marathon.repo.EventRepository;
+import in.connectwithsandeepan.marathon.repo.ResultRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers leaderboard queries from one in-memory {@link Leaderboard} per event. An event's
+ * leaderboard is read from the database the first time it is asked for and rebuilt when an
+ * upload job for the event ends; a result saved or deleted through the API, or a deleted
+ * event, drops it until the next query. Queries read on the API pool; a rebuild runs in the
+ * upload job, so it reads on the batch pool. A leaderboard read while the event is evicted
+ * or rebuilt answers its query but is not kept, as it may predate the change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardService {
+
+    public static final int MAX_ENTRIES = 100;
+    public static final int MAX_NEIGHBOURS = 50;
+
+    static final String COUNT_EVENT = "SELECT COUNT(*) FROM event WHERE id = ?";
+    static final String SELECT_CATEGORY_NAMES =
+            "SELECT category_name FROM event_category WHERE event_id = ? ORDER BY flag_off_time";
+    static final String SELECT_ROWS = "SELECT r.id, r.bib_number, r.participant_name, r.gender, r.age_category, " +
+            "c.category_name, r.chip_time FROM result r JOIN event_category c ON c.id = r.event_category_id " +
+            "WHERE r.event_id = ? ORDER BY r.chip_time, r.id";
+
+    private final ResultRepository resultRepository;
+    private final EventRepository eventRepository;
+    private final EventCategoryRepository eventCategoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    // bumped by every evict and rebuild; a leaderboard read before the latest bump is not kept
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @param category    the race category
+     * @param gender      only runners of this gender, or {@code null} for all
+     * @param ageCategory only runners of this age category, or {@code null} for all
+     * @param limit       the number of runners, at most {@link #MAX_ENTRIES}
+     * @return the fastest runners of the field by chip time
+     * @throws EntityNotFoundException if the event or the category does not exist
+     */
+    public LeaderboardDto getTop(Long eventId, String category, String gender, String ageCategory, int limit) {
+        Leaderboard leaderboard = getLeaderboard(eventId);
+        if (!leaderboard.hasCategory(category)) {
+            throw new EntityNotFoundException("Category '" + category + "' not found in event with id: " + eventId);
+        }
+        return leaderboard.top(category,
+                StringUtils.hasText(gender) ? gender : null,
+                StringUtils.hasText(ageCategory) ? ageCategory : null,
+                Math.max(1, Math.min(limit, MAX_ENTRIES)));
+    }
+
+    /**
+     * @param scope      the field, within the runner's race category, to rank them in
+     * @param neighbours how many runners ahead and behind to include, at most {@link #MAX_NEIGHBOURS}
+     * @return the rank, percentile and neighbours of the runner with {@code bibNumber}
+     * @throws EntityNotFoundException if the event or the bib number does not exist
+     */
+    public LeaderboardStandingDto getStanding(Long eventId, String bibNumber, LeaderboardScope scope, int neighbours) {
+        LeaderboardStandingDto standing = getLeaderboard(eventId)
+                .standingOf(bibNumber, scope, Math.max(0, Math.min(neighbours, MAX_NEIGHBOURS)));
+        if (standing == null) {
+            throw new EntityNotFoundException("Bib number '" + bibNumber + "' not found in event with id: " + eventId);
+        }
+        return standing;
+    }
+
+    /**
+     * Reads the event's leaderboard again, after an upload job changed its results.
+     */
+    public void rebuild(Long eventId) {
+        long generation = invalidate(eventId);
+        try {
+            store(eventId, generation, loadForJob(eventId));
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild leaderboard of event id: {}, it is read on the next query", eventId, e);
+        }
+    }
+
+    /**
+     * Drops the event's leaderboard, once the current transaction (if any) has ended so the
+     * next query reads what it committed.
+     */
+    public void evict(Long eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(eventId);
+            }
+        });
+    }
+
+    private Leaderboard getLeaderboard(Long eventId) {
+        Leaderboard leaderboard = leaderboards.get(eventId);
+        if (leaderboard != null) {
+            return leaderboard;
+        }
+        long generation = generations.getOrDefault(eventId, 0L);
+        leaderboard = load(eventId);
+        store(eventId, generation, leaderboard);
+        return leaderboard;
+    }
+
+    /**
+     * Drops the event's leaderboard and starts a new generation of it.
+     *
+     * @return the new generation
+     */
+    private long invalidate(Long eventId) {
+        return generations.compute(eventId, (id, generation) -> {
+            leaderboards.remove(id);
+            return generation == null ? 1L : generation + 1;
+        });
+    }
+
+    /**
+     * Keeps a leaderboard unless the event was evicted or rebuilt since it was read.
+     */
+    private void store(Long eventId, long generation, Leaderboard leaderboard) {
+        generations.compute(eventId, (id, current) -> {
+            if ((current == null ? 0L : current) == generation) {
+                leaderboards.put(id, leaderboard);
+            }
+            return current;
+        });
+    }
+
+    private Leaderboard load(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            log.warn(ResultServiceImpl.EVENT_NOT_FOUND_WITH_ID, eventId);
+            throw new EntityNotFoundException("Event not found with id: " + eventId);
+        }
+        long start = System.nanoTime();
+        List<String> categories = eventCategoryRepository.findByEventIdOrderByFlagOffTimeAsc(eventId).stream()
+                .map(EventCategory::getCategoryName)
+                .toList();
+        return build(eventId, resultRepository.findLeaderboardRowsByEventId(eventId), categories, start);
+    }
+
+    /**
+     * Same as {@link #load}, with the batch pool's {@link JdbcTemplate}.
+     */
+    private Leaderboard loadForJob(Long eventId) {
+        if (jdbcTemplate.queryForObject(COUNT_EVENT, Long.class, eventId) == 0) {
+            throw new EntityNotFoundException("Event not found with id: " + eventId);
+        }
+        long start = System.nanoTime();
+        List<String> categories = jdbcTemplate.queryForList(SELECT_CATEGORY_NAMES, String.class, eventId);
+        List<LeaderboardRow> rows = jdbcTemplate.query(SELECT_ROWS, (rs, rowNum) -> new LeaderboardRow(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6),
+                rs.getObject(7, LocalTime.class)), eventId);
+        return build(eventId, rows, categories, start);
+    }
+
+    private Leaderboard build(Long eventId, List<LeaderboardRow> rows, List<String> categories, long start) {
+        Leaderboard leaderboard = Leaderboard.of(rows, categories);
+        log.info("Built leaderboard of event id: {} with {} results in {} ms",
+                eventId, leaderboard.size(), (System.nanoTime() - start) / 1_000_000);
+        return leaderboard;
+    }
+}
@@ -0,0 +1,77 @@
+package in.connectwithsandeepan.marathon.service;
+
+import in.connectwithsandeepan.marathon.dto.ResultView;
+import in.connectwithsandeepan.marathon.entity.Result;
+import in.connectwithsandeepan.marathon.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position after the last result of a page: the sort key and id of that result. Clients
+ * get it as an opaque string and only hand it back for the next page.
+ *
+ * @param kind {@code C} for chip time order, {@code R} for ranked and {@code U} for
+ *             unranked results in rank order
+ * @param key  chip time as nanoseconds of the day, or overall position; 0 for unranked
+ *             results
+ * @param id   id of the last result
+ */
+record ResultCursor(char kind, long key, long id) {
+
+    /**
+     * @return the position before the first result in {@code sort} order
+     */
+    static ResultCursor first(ResultSort sort) {
+        return new ResultCursor(sort == ResultSort.RANK ? 'R' : 'C', 0, 0);
+    }
+
+    /**
+     * @return the position after {@code result} in {@code sort} order
+     */
+    static ResultCursor after(ResultView result, ResultSort sort) {
+        if (sort == ResultSort.CHIP_TIME) {
+            return new ResultCursor('C', result.chipTime().toNanoOfDay(), result.id());
+        }
+        Integer position = Result.positionOf(result.overAllRank());
+        return position != null ? new ResultCursor('R', position, result.id()) : new ResultCursor('U', 0, result.id());
+    }
+
+    /**
+     * @throws InvalidCursorException if {@code cursor} was not made by {@link #encode} or
+     *                                belongs to another sort order
+     */
+    static ResultCursor decode(String cursor, ResultSort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            ResultCursor decoded = new ResultCursor(parts[0].charAt(0), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            boolean matchesSort = sort == ResultSort.CHIP_TIME
+                    ? decoded.kind == 'C' && decoded.key <= LocalTime.MAX.toNanoOfDay()
+                    : decoded.kind == 'R' && decoded.key <= Integer.MAX_VALUE || decoded.kind == 'U';
+            if (parts.length == 3 && parts[0].length() == 1 && decoded.key >= 0 && matchesSort) {
+                return decoded;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // reported below
+        }
+        throw new InvalidCursorException("Invalid cursor for results sorted by " + sort);
+    }
+
+    String encode() {
+        String value = kind + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    boolean unranked() {
+        return kind == 'U';
+    }
+
+    LocalTime chipTime() {
+        return LocalTime.ofNanoOfDay(key);
+    }
+
+    int position() {
+        return (int) key;
+    }
+}
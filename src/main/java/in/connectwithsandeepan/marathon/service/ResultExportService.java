@@ -0,0 +1,174 @@
+package in.connectwithsandeepan.marathon.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.connectwithsandeepan.marathon.entity.EventCategory;
+import in.connectwithsandeepan.marathon.exception.TooManyExportsException;
+import in.connectwithsandeepan.marathon.repo.EventCategoryRepository;
+import in.connectwithsandeepan.marathon.repo.EventRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes every result of an event as a JSON array while the rows are read, in chip time
+ * order. The results are read with one forward-only query on the primary pool, without
+ * loading entities, and each one is written as soon as its last checkpoint was read, so
+ * memory use does not depend on the size of the event. The JSON has the shape of
+ * {@link in.connectwithsandeepan.marathon.dto.ResultView}.
+ * <p>
+ * An export holds a connection until the client has read the last result, so at most
+ * {@code max-concurrent} run at once.
+ */
+@Service
+@Slf4j
+public class ResultExportService {
+
+    static final String SELECT_RESULTS = "SELECT r.id, r.bib_number, r.participant_name, r.gender, r.age_category, " +
+            "r.over_all_rank, r.gender_rank, r.age_category_rank, r.chip_time, r.gun_time, r.event_category_id, " +
+            "c.id AS checkpoint_id, c.checkpoint_number, c.time " +
+            "FROM result r LEFT JOIN checkpoint c ON c.result_id = r.id " +
+            "WHERE r.event_id = ? ORDER BY r.chip_time, r.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EventRepository eventRepository;
+    private final EventCategoryRepository eventCategoryRepository;
+    private final Semaphore exports;
+
+    public ResultExportService(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            EventRepository eventRepository,
+            EventCategoryRepository eventCategoryRepository,
+            @Value("${results.export.fetch-size:-2147483648}") int fetchSize,
+            @Value("${results.export.max-concurrent:4}") int maxConcurrent) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.eventRepository = eventRepository;
+        this.eventCategoryRepository = eventCategoryRepository;
+        this.exports = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @return the body writing the results of {@code eventId}
+     * @throws EntityNotFoundException if the event does not exist
+     * @throws TooManyExportsException if {@code max-concurrent} exports are running
+     */
+    public StreamingResponseBody exportResults(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            log.warn(ResultServiceImpl.EVENT_NOT_FOUND_WITH_ID, eventId);
+            throw new EntityNotFoundException("Event not found with id: " + eventId);
+        }
+        Map<Long, EventCategory> categories = eventCategoryRepository.findByEventIdOrderByFlagOffTimeAsc(eventId).stream()
+                .collect(Collectors.toMap(EventCategory::getId, Function.identity()));
+
+        if (!exports.tryAcquire()) {
+            throw new TooManyExportsException("Too many result exports running, please try again later");
+        }
+        return out -> {
+            long start = System.nanoTime();
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long written = writeResults(eventId, categories, json);
+                log.info("Exported {} results of event id: {} in {} ms", written, eventId, (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                exports.release();
+            }
+        };
+    }
+
+    private long writeResults(Long eventId, Map<Long, EventCategory> categories, JsonGenerator json) throws IOException {
+        ResultWriter writer = new ResultWriter(json, categories);
+        json.writeStartArray();
+        try {
+            jdbcTemplate.query(SELECT_RESULTS, writer::writeRow, eventId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // the client went away
+        }
+        writer.endResult();
+        json.writeEndArray();
+        return writer.written;
+    }
+
+    /**
+     * Writes the rows of the query, one per checkpoint of a result, as result objects.
+     */
+    private static final class ResultWriter {
+
+        private final JsonGenerator json;
+        private final Map<Long, EventCategory> categories;
+        private long resultId;
+        private Long categoryId;
+        private long written;
+
+        ResultWriter(JsonGenerator json, Map<Long, EventCategory> categories) {
+            this.json = json;
+            this.categories = categories;
+        }
+
+        void writeRow(ResultSet rs) throws SQLException {
+            try {
+                long id = rs.getLong("id");
+                if (categoryId == null || id != resultId) {
+                    endResult();
+                    startResult(rs, id);
+                }
+                long checkpointId = rs.getLong("checkpoint_id");
+                if (!rs.wasNull()) {
+                    json.writeStartObject();
+                    json.writeNumberField("id", checkpointId);
+                    json.writeNumberField("checkpointNumber", rs.getInt("checkpoint_number"));
+                    json.writeObjectField("time", rs.getObject("time", LocalTime.class));
+                    json.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void startResult(ResultSet rs, long id) throws SQLException, IOException {
+            resultId = id;
+            categoryId = rs.getLong("event_category_id");
+            json.writeStartObject();
+            json.writeNumberField("id", id);
+            json.writeStringField("bibNumber", rs.getString("bib_number"));
+            json.writeStringField("participantName", rs.getString("participant_name"));
+            json.writeStringField("gender", rs.getString("gender"));
+            json.writeStringField("ageCategory", rs.getString("age_category"));
+            json.writeStringField("overAllRank", rs.getString("over_all_rank"));
+            json.writeStringField("genderRank", rs.getString("gender_rank"));
+            json.writeStringField("ageCategoryRank", rs.getString("age_category_rank"));
+            json.writeObjectField("chipTime", rs.getObject("chip_time", LocalTime.class));
+            json.writeObjectField("gunTime", rs.getObject("gun_time", LocalTime.class));
+            json.writeArrayFieldStart("checkpointTimes");
+        }
+
+        void endResult() throws IOException {
+            if (categoryId == null) {
+                return;
+            }
+            json.writeEndArray();
+            json.writeObjectField("category", categories.get(categoryId));
+            json.writeEndObject();
+            if (++written == 1) {
+                json.flush(); // the first result goes out without waiting for a full buffer
+            }
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package in.connectwithsandeepan.marathon.service;
 
+import in.connectwithsandeepan.marathon.dto.ResultPageDto;
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultView;
 import in.connectwithsandeepan.marathon.entity.Result;
 
 import java.util.List;
 
 public interface ResultService {
+
+    int MAX_PAGE_SIZE = 200;
+
     /**
      * Saves a result for a specific marathon event.
      *
@@ -22,7 +27,7 @@ public interface ResultService {
      * @param id the ID of the result
      * @return the result with the specified ID
      */
-    Result getResultById(Long id);
+    ResultView getResultById(Long id);
 
     /**
      * Retrieves all results for a specific marathon event.
@@ -30,7 +35,23 @@ public interface ResultService {
      * @param eventId the ID of the marathon event
      * @return a list of results for the specified event
      */
-    List<Result> getAllResultsByEventId(Long eventId);
+    List<ResultView> getAllResultsByEventId(Long eventId);
+
+    /**
+     * Retrieves one page of the results of a marathon event. Pages are read by keyset, so
+     * every page costs the same however deep into the field it is.
+     *
+     * @param eventId     the ID of the marathon event
+     * @param sort        the order of the results
+     * @param category    only results of this race category, or {@code null} for all
+     * @param gender      only results of this gender, or {@code null} for all
+     * @param ageCategory only results of this age category, or {@code null} for all
+     * @param cursor      the next cursor of the previous page, or {@code null} for the first page
+     * @param size        the number of results per page, at most {@link #MAX_PAGE_SIZE}
+     * @return the page and the cursor of the next one
+     */
+    ResultPageDto getResultPage(Long eventId, ResultSort sort, String category, String gender, String ageCategory,
+                                String cursor, int size);
 
     /**
      * Updates an existing result.
@@ -1,20 +1,31 @@
 package in.connectwithsandeepan.marathon.service;
 
 import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.CheckpointView;
+import in.connectwithsandeepan.marathon.dto.ResultPageDto;
 import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultView;
 import in.connectwithsandeepan.marathon.entity.Checkpoint;
 import in.connectwithsandeepan.marathon.entity.Event;
 import in.connectwithsandeepan.marathon.entity.EventCategory;
 import in.connectwithsandeepan.marathon.entity.Result;
+import in.connectwithsandeepan.marathon.repo.EventCategoryRepository;
 import in.connectwithsandeepan.marathon.repo.EventRepository;
 import in.connectwithsandeepan.marathon.repo.ResultRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,10 +33,16 @@ import java.util.List;
 public class ResultServiceImpl implements ResultService {
 
     public static final String EVENT_NOT_FOUND_WITH_ID = "Event not found with id: {}";
+    // results whose checkpoints are read with one IN query
+    private static final int CHECKPOINT_BATCH_SIZE = 1000;
+
     private final ResultRepository resultRepository;
     private final EventRepository eventRepository;
+    private final EventCategoryRepository eventCategoryRepository;
+    private final LeaderboardService leaderboardService;
 
     @Override
+    @Transactional
     public Result saveResult(Long eventId, ResultRequestDTO dto) {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> {
@@ -66,23 +83,28 @@ public class ResultServiceImpl implements ResultService {
         }
 
         Result savedResult = resultRepository.save(result);
+        eventRepository.updateLastIngestSha256(eventId, null); // the results no longer match the last upload
+        leaderboardService.evict(eventId);
         log.info("Result saved with id: {} for participant: {}", savedResult.getId(), savedResult.getParticipantName());
         return savedResult;
     }
 
     @Override
-    public Result getResultById(Long id) {
+    @Transactional(readOnly = true)
+    public ResultView getResultById(Long id) {
         log.debug("Fetching result with id: {}", id);
-        return resultRepository.findById(id).orElseThrow(
+        ResultView result = resultRepository.findViewById(id).orElseThrow(
                 () -> {
                     log.warn("Result not found with id: {}", id);
                     return new EntityNotFoundException("Result not found with id: " + id);
                 }
         );
+        return addCheckpoints(List.of(result)).get(0);
     }
 
     @Override
-    public List<Result> getAllResultsByEventId(Long eventId) {
+    @Transactional(readOnly = true)
+    public List<ResultView> getAllResultsByEventId(Long eventId) {
         log.debug("Fetching all results for event id: {}", eventId);
 
         if (!eventRepository.existsById(eventId)) {
@@ -90,17 +112,67 @@ public class ResultServiceImpl implements ResultService {
             throw new EntityNotFoundException("Event not found with id: " + eventId);
         }
 
-        List<Result> results = resultRepository.findAllByEventIdWithCategoryAndCheckpoints(eventId);  // Simple, no ordering
+        List<ResultView> results = addCheckpoints(resultRepository.findViewsByEventId(eventId));  // Simple, no ordering
         log.info("Found {} results for event id: {}", results.size(), eventId);
         return results;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ResultPageDto getResultPage(Long eventId, ResultSort sort, String category, String gender,
+                                       String ageCategory, String cursor, int size) {
+        log.debug("Fetching {} results sorted by {} for event id: {}", size, sort, eventId);
+
+        if (!eventRepository.existsById(eventId)) {
+            log.warn(EVENT_NOT_FOUND_WITH_ID, eventId);
+            throw new EntityNotFoundException("Event not found with id: " + eventId);
+        }
+        Long categoryId = null;
+        if (StringUtils.hasText(category)) {
+            categoryId = eventCategoryRepository.findByEventIdAndCategoryName(eventId, category)
+                    .orElseThrow(() -> new EntityNotFoundException("Category '" + category + "' not found in event with id: " + eventId))
+                    .getId();
+        }
+        gender = StringUtils.hasText(gender) ? gender : null;
+        ageCategory = StringUtils.hasText(ageCategory) ? ageCategory : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // one row more than the page tells whether there is a next page
+        ResultCursor after = cursor != null ? ResultCursor.decode(cursor, sort) : ResultCursor.first(sort);
+        List<Long> ids;
+        if (sort == ResultSort.CHIP_TIME) {
+            ids = resultRepository.findPageIdsByChipTime(eventId, categoryId, gender, ageCategory,
+                    after.chipTime(), after.id(), Limit.of(pageSize + 1));
+        } else if (after.unranked()) {
+            ids = resultRepository.findUnrankedPageIds(eventId, categoryId, gender, ageCategory,
+                    after.id(), Limit.of(pageSize + 1));
+        } else {
+            ids = new ArrayList<>(resultRepository.findPageIdsByPosition(eventId, categoryId, gender, ageCategory,
+                    after.position(), after.id(), Limit.of(pageSize + 1)));
+            if (ids.size() <= pageSize) { // the unranked results follow the last ranked one
+                ids.addAll(resultRepository.findUnrankedPageIds(eventId, categoryId, gender, ageCategory,
+                        0L, Limit.of(pageSize + 1 - ids.size())));
+            }
+        }
+
+        boolean hasNext = ids.size() > pageSize;
+        List<Long> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+        Map<Long, ResultView> byId = pageIds.isEmpty() ? Map.of() : resultRepository.findViewsByIds(pageIds).stream()
+                .collect(Collectors.toMap(ResultView::id, Function.identity()));
+        List<ResultView> results = addCheckpoints(pageIds.stream().map(byId::get).filter(Objects::nonNull).toList()); // unless deleted meanwhile
+
+        String nextCursor = hasNext && !results.isEmpty() ? ResultCursor.after(results.get(results.size() - 1), sort).encode() : null;
+        log.info("Found {} results for event id: {}, more: {}", results.size(), eventId, hasNext);
+        return new ResultPageDto(results, nextCursor);
+    }
+
     @Override
     public Result updateResult(Long id, Result result) {
         throw new UnsupportedOperationException("Not implemented yet");
     }
 
     @Override
+    @Transactional
     public void deleteResult(Long eventId, Long id) {
         log.debug("Deleting result with id: {}", id);
 
@@ -108,9 +180,31 @@ public class ResultServiceImpl implements ResultService {
             log.warn(EVENT_NOT_FOUND_WITH_ID, eventId);
             return new EntityNotFoundException("Event not found with id: " + eventId);
         });
-        Result result = getResultById(id);
+        Result result = resultRepository.findById(id).orElseThrow(() -> {
+            log.warn("Result not found with id: {}", id);
+            return new EntityNotFoundException("Result not found with id: " + id);
+        });
         resultRepository.delete(result);
+        eventRepository.updateLastIngestSha256(eventId, null);
+        leaderboardService.evict(eventId);
 
         log.info("Result deleted with id: {}", id);
     }
+
+    /**
+     * Reads the checkpoints of {@code results} with one query per
+     * {@value #CHECKPOINT_BATCH_SIZE} results, instead of joining them to the results.
+     *
+     * @return {@code results}, each with its checkpoints in checkpoint order
+     */
+    private List<ResultView> addCheckpoints(List<ResultView> results) {
+        for (int from = 0; from < results.size(); from += CHECKPOINT_BATCH_SIZE) {
+            Map<Long, ResultView> byId = results.subList(from, Math.min(from + CHECKPOINT_BATCH_SIZE, results.size())).stream()
+                    .collect(Collectors.toMap(ResultView::id, Function.identity()));
+            for (CheckpointView checkpoint : resultRepository.findCheckpointViews(byId.keySet())) {
+                byId.get(checkpoint.resultId()).checkpointTimes().add(checkpoint);
+            }
+        }
+        return results;
+    }
 }
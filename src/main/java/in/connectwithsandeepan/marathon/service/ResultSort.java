@@ -0,0 +1,15 @@
+package in.connectwithsandeepan.marathon.service;
+
+/**
+ * Order of a results page.
+ */
+public enum ResultSort {
+    /**
+     * Fastest chip time first.
+     */
+    CHIP_TIME,
+    /**
+     * By overall rank; results without a numeric rank, such as DNFs, come last.
+     */
+    RANK
+}
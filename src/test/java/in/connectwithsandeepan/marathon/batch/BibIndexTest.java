@@ -0,0 +1,40 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BibIndexTest {
+
+    @Test
+    void reportsTheFirstRowOfADuplicateBib() {
+        BibIndex index = new BibIndex(List.of());
+
+        assertThat(index.register("101", 2)).isNull();
+        assertThat(index.register("102", 3)).isNull();
+        assertThat(index.register("101", 7)).isEqualTo(2);
+        assertThat(index.register("101", 9)).isEqualTo(2);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void countsStoredBibsAsDuplicates() {
+        BibIndex index = new BibIndex(List.of("101"));
+
+        assertThat(index.register("101", 2)).isEqualTo(BibIndex.STORED);
+        assertThat(index.register("102", 3)).isNull();
+    }
+
+    @Test
+    void matchesDeltaRowsWithStoredResultsWithoutCallingThemDuplicates() {
+        BibIndex index = BibIndex.forDelta(List.of(new StoredResult("101", 11L, 5L), new StoredResult("102", 12L, null)));
+
+        assertThat(index.register("101", 2)).isNull();
+        assertThat(index.register("101", 4)).isEqualTo(2);
+        assertThat(index.getStored("101")).isEqualTo(new StoredResult("101", 11L, 5L));
+        assertThat(index.getStored("103")).isNull();
+        assertThat(index.getStored(null)).isNull();
+    }
+}
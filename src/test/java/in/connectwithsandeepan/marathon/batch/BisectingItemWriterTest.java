@@ -0,0 +1,126 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BisectingItemWriterTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final StepContribution contribution = new StepContribution(new StepExecution("ingest", new JobExecution(1L)));
+    private final List<Integer> written = new ArrayList<>();
+    private int writes;
+
+    BisectingItemWriterTest() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void skipsTheOneBadRowAndWritesTheRest() throws Exception {
+        BisectingItemWriter<Integer> writer = writer(Set.of(37), (failure, skipCount) -> true);
+        Chunk<Integer> chunk = chunkOf(100);
+
+        process(writer, chunk);
+
+        List<Integer> good = IntStream.rangeClosed(1, 100).filter(i -> i != 37).boxed().toList();
+        assertThat(written).isEqualTo(good);
+        assertThat(chunk.getItems()).isEqualTo(good);
+        assertThat(chunk.getSkips()).singleElement().satisfies(skip -> assertThat(skip.getItem()).isEqualTo(37));
+        assertThat(contribution.getWriteSkipCount()).isEqualTo(1);
+        // the whole chunk, then two halves per level down to the bad row
+        assertThat(writes).isLessThanOrEqualTo(1 + 2 * 7);
+    }
+
+    @Test
+    void skipsEveryBadRow() throws Exception {
+        BisectingItemWriter<Integer> writer = writer(Set.of(1, 50, 51, 100), (failure, skipCount) -> true);
+        Chunk<Integer> chunk = chunkOf(100);
+
+        process(writer, chunk);
+
+        assertThat(written).hasSize(96).doesNotContain(1, 50, 51, 100);
+        assertThat(contribution.getWriteSkipCount()).isEqualTo(4);
+    }
+
+    @Test
+    void rollsBackEveryFailedWriteToItsSavepoint() throws Exception {
+        BisectingItemWriter<Integer> writer = writer(Set.of(3), (failure, skipCount) -> true);
+
+        process(writer, chunkOf(4));
+
+        // [1..4] fails, [1,2] commits, [3,4] fails, [3] fails, [4] commits
+        verify(transactionManager, times(3)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void failsTheChunkWhenTheSkipPolicyRefuses() {
+        BisectingItemWriter<Integer> writer = writer(Set.of(5), (failure, skipCount) -> false);
+
+        assertThatThrownBy(() -> process(writer, chunkOf(10)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("5");
+    }
+
+    @Test
+    void passesOtherFailuresOnWithoutSplitting() {
+        ItemWriter<Integer> delegate = chunk -> {
+            writes++;
+            throw new IllegalStateException("connection lost");
+        };
+        BisectingItemWriter<Integer> writer = new BisectingItemWriter<>(delegate, transactionManager, (f, c) -> true);
+
+        assertThatThrownBy(() -> process(writer, chunkOf(10))).isInstanceOf(IllegalStateException.class);
+        assertThat(writes).isEqualTo(1);
+    }
+
+    @Test
+    void writesDirectlyOutsideTheChunkProcessor() {
+        BisectingItemWriter<Integer> writer = writer(Set.of(5), (failure, skipCount) -> true);
+
+        // as in the step's own item by item scan, which skips the row itself
+        assertThatThrownBy(() -> writer.write(chunkOf(10))).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(writes).isEqualTo(1);
+    }
+
+    private BisectingItemWriter<Integer> writer(Set<Integer> bad, SkipPolicy skipPolicy) {
+        ItemWriter<Integer> delegate = chunk -> {
+            writes++;
+            for (Integer item : chunk) {
+                if (bad.contains(item)) {
+                    throw new DataIntegrityViolationException("Duplicate entry for row " + item);
+                }
+            }
+            written.addAll(chunk.getItems());
+        };
+        return new BisectingItemWriter<>(delegate, transactionManager, skipPolicy);
+    }
+
+    private void process(BisectingItemWriter<Integer> writer, Chunk<Integer> chunk) throws Exception {
+        writer.<Integer>countingSkipsOf((stepContribution, inputs) -> writer.write(chunk)).process(contribution, new Chunk<>());
+    }
+
+    private static Chunk<Integer> chunkOf(int size) {
+        return new Chunk<>(IntStream.rangeClosed(1, size).boxed().toList());
+    }
+}
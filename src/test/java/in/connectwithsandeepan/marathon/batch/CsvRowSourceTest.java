@@ -0,0 +1,128 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every case is read with both {@link MappedCsvRowSource} and {@link InputStreamCsvRowSource},
+ * which must agree.
+ */
+class CsvRowSourceTest {
+
+    @TempDir
+    Path dir;
+
+    record Row(int number, List<String> cells) {
+    }
+
+    @Test
+    void readsQuotedFieldsWithCommasAndDoubledQuotes() throws IOException {
+        assertThat(rows("101,\"Doe, Jane\",\"say \"\"hi\"\"\", \" padded \" \n"))
+                .containsExactly(new Row(0, List.of("101", "Doe, Jane", "say \"hi\"", "padded")));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFieldsAndCountsTheirLines() throws IOException {
+        assertThat(rows("bib,name\n1,\"two\nlines\"\n2,x\n")).containsExactly(
+                new Row(0, List.of("bib", "name")),
+                new Row(1, List.of("1", "two\nlines")),
+                new Row(3, List.of("2", "x")));
+    }
+
+    @Test
+    void dropsTheCarriageReturnOfCrlfLineEnds() throws IOException {
+        assertThat(rows("bib,name\r\n1,\"a\r\nb\"\r\n2,\r\n")).containsExactly(
+                new Row(0, List.of("bib", "name")),
+                new Row(1, List.of("1", "a\r\nb")),
+                new Row(3, List.of("2", "")));
+    }
+
+    @Test
+    void skipsALeadingByteOrderMark() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        csv.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        csv.writeBytes("Bib,Name\n1,Jane\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(rows(csv.toByteArray())).containsExactly(
+                new Row(0, List.of("Bib", "Name")),
+                new Row(1, List.of("1", "Jane")));
+    }
+
+    @Test
+    void skipsBlankLinesIncludingTrailingOnes() throws IOException {
+        assertThat(rows("a\n\n1\n\r\n\n")).containsExactly(
+                new Row(0, List.of("a")),
+                new Row(2, List.of("1")));
+    }
+
+    @Test
+    void readsALastRowWithoutLineEnd() throws IOException {
+        assertThat(rows("a,b\n1,2")).containsExactly(
+                new Row(0, List.of("a", "b")),
+                new Row(1, List.of("1", "2")));
+    }
+
+    @Test
+    void readsAnEmptyFile() throws IOException {
+        assertThat(rows("")).isEmpty();
+    }
+
+    @Test
+    void readsRowsLongerThanOneStreamBlock() throws IOException {
+        String name = "x".repeat(200_000);
+
+        assertThat(rows("1," + name + "\n2,\"" + name + "\"\n")).containsExactly(
+                new Row(0, List.of("1", name)),
+                new Row(1, List.of("2", name)));
+    }
+
+    @Test
+    void returnsNullPastTheLastCell() throws IOException {
+        try (SheetRowSource source = new InputStreamCsvRowSource(new ByteArrayInputStream("a,b\n".getBytes()))) {
+            assertThat(source.next()).isTrue();
+            assertThat(source.getCellCount()).isEqualTo(2);
+            assertThat(source.getCell(2)).isNull();
+            assertThat(source.next()).isFalse();
+        }
+    }
+
+    private List<Row> rows(String csv) throws IOException {
+        return rows(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Row> rows(byte[] csv) throws IOException {
+        Path file = dir.resolve("results.csv");
+        Files.write(file, csv);
+        List<Row> mapped;
+        try (SheetRowSource source = new MappedCsvRowSource(file)) {
+            mapped = read(source);
+        }
+        try (SheetRowSource source = new InputStreamCsvRowSource(new ByteArrayInputStream(csv))) {
+            assertThat(read(source)).isEqualTo(mapped);
+        }
+        return mapped;
+    }
+
+    private static List<Row> read(SheetRowSource source) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        while (source.next()) {
+            List<String> cells = new ArrayList<>();
+            for (int column = 0; column < source.getCellCount(); column++) {
+                cells.add(source.getCell(column));
+            }
+            rows.add(new Row(source.getRowNumber(), cells));
+        }
+        return rows;
+    }
+}
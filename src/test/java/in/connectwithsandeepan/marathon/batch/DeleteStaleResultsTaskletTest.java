@@ -0,0 +1,122 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each case runs the tasklet the way a restart does after the ingest step completed: in a
+ * new job execution that read no row of the file.
+ */
+class DeleteStaleResultsTaskletTest {
+
+    private static final String FILE = """
+            Bib Number,Participant Name,Chip Time
+            101,Jane Doe,1:00:00
+            103,Bad Row,not a time
+            104,New Runner,1:10:00
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final SheetRowSourceFactory rowSourceFactory =
+            new SheetRowSourceFactory(true, DataSize.ofMegabytes(50), DataSize.ofMegabytes(10));
+    private final StepExecution stepExecution = new StepExecution("deleteStaleResultsStep", new JobExecution(2L));
+    private final List<Object> deleted = new ArrayList<>();
+
+    DeleteStaleResultsTaskletTest() throws Exception {
+        // stored: 101 and 103 are still in the file (103 as an invalid row), 102 is not,
+        // 104 was inserted by the execution that failed
+        storedResults(Map.of(11L, "101", 12L, "102", 13L, "103", 14L, "104"));
+        when(jdbcTemplate.update(eq("DELETE FROM result WHERE id IN (:ids)"), anyMap())).thenAnswer(invocation -> {
+            Map<String, List<Long>> batch = invocation.getArgument(1);
+            deleted.addAll(batch.get("ids"));
+            return batch.get("ids").size();
+        });
+    }
+
+    @Test
+    void deletesOnlyResultsWhoseBibIsNotInTheFile() throws Exception {
+        Path file = write("event_1_results.csv", FILE);
+
+        execute(tasklet(file, null, "DELTA"));
+
+        assertThat(deleted).containsExactly(12L);
+        assertThat(stepExecution.getWriteCount()).isEqualTo(1);
+        assertThat(IngestCounts.sum(List.of(stepExecution), IngestCounts.DELETED)).isEqualTo(1);
+    }
+
+    @Test
+    void readsTheAuditCopyOfAStreamThatIsStillBeingMovedIntoPlace() throws Exception {
+        Path file = dir.resolve("event_1_results.csv");
+        write(IngestStream.partialCopyOf(file).getFileName().toString(), FILE);
+
+        execute(tasklet(file, "stream-1", "DELTA"));
+
+        assertThat(deleted).containsExactly(12L);
+    }
+
+    @Test
+    void deletesNothingForAReplaceUpload() throws Exception {
+        Path file = write("event_1_results.csv", FILE);
+
+        execute(tasklet(file, null, "REPLACE"));
+
+        verify(jdbcTemplate, never()).query(any(String.class), anyMap(), any(RowCallbackHandler.class));
+        assertThat(deleted).isEmpty();
+    }
+
+    private DeleteStaleResultsTasklet tasklet(Path file, String streamId, String mode) {
+        return new DeleteStaleResultsTasklet(rowSourceFactory, jdbcTemplate, file.toString(), 1L, streamId, mode);
+    }
+
+    private void execute(DeleteStaleResultsTasklet tasklet) throws Exception {
+        StepContribution contribution = stepExecution.createStepContribution();
+        tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+        stepExecution.apply(contribution);
+    }
+
+    private void storedResults(Map<Long, String> bibsById) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<Long, String> stored : bibsById.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(stored.getKey());
+                when(rs.getString(2)).thenReturn(stored.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(DeleteStaleResultsTasklet.SELECT_STORED_RESULTS), anyMap(), any(RowCallbackHandler.class));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,116 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the allocator against one in-memory sequence table shared with Hibernate's pooled
+ * optimizer, set up as Hibernate sets it up for {@code GenerationType.AUTO} on MySQL.
+ */
+class IdBlockAllocatorTest {
+
+    private final SequenceTable sequence = new SequenceTable();
+    private final IdBlockAllocator allocator = new IdBlockAllocator(sequence, new ResourcelessTransactionManager());
+    private final PooledOptimizer hibernate = new PooledOptimizer(Long.class, IdBlockAllocator.ALLOCATION_SIZE);
+    private final Set<Long> used = new HashSet<>();
+
+    IdBlockAllocatorTest() {
+        hibernate.injectInitialValue(1);
+    }
+
+    @Test
+    void startsAnEmptySequenceAtOne() {
+        assertThat(allocator.allocate("result_seq", 10)).isEqualTo(1);
+        // a next_val of 1 is the top of a block holding only id 1, so one more block is taken
+        assertThat(sequence.nextVal).isEqualTo(101);
+    }
+
+    @Test
+    void reservesNothingForNoIds() {
+        assertThat(allocator.allocate("result_seq", 0)).isZero();
+        assertThat(sequence.nextVal).isEqualTo(1);
+    }
+
+    @Test
+    void neverHandsOutAnIdHibernateUses() {
+        generateWithHibernate(3);
+        allocate(120);
+        generateWithHibernate(60);
+        allocate(1);
+        allocate(50);
+        allocate(51);
+        generateWithHibernate(120);
+        allocate(7);
+    }
+
+    @Test
+    void neverHandsOutAnIdHibernateUsesInRandomOrder() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            if (random.nextBoolean()) {
+                generateWithHibernate(1 + random.nextInt(80));
+            } else {
+                allocate(1 + random.nextInt(300));
+            }
+        }
+    }
+
+    private void allocate(int count) {
+        long first = allocator.allocate("result_seq", count);
+        for (long id = first; id < first + count; id++) {
+            assertThat(used.add(id)).as("id %d reserved for %d rows was already used", id, count).isTrue();
+        }
+    }
+
+    private void generateWithHibernate(int count) {
+        for (int i = 0; i < count; i++) {
+            long id = (Long) hibernate.generate(sequence);
+            assertThat(used.add(id)).as("id %d generated by Hibernate was already used", id).isTrue();
+        }
+    }
+
+    /**
+     * A sequence table with its one {@code next_val} row, read and advanced by the
+     * allocator's statements and by Hibernate's table structure alike.
+     */
+    private static class SequenceTable extends JdbcTemplate implements AccessCallback {
+
+        long nextVal = 1;
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return requiredType.cast(nextVal);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            nextVal = (Long) args[0];
+            return 1;
+        }
+
+        // Hibernate reads next_val and moves it up by one increment
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+            value.initialize(nextVal);
+            nextVal += IdBlockAllocator.ALLOCATION_SIZE;
+            return value;
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.exception.IngestQueueFullException;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Worker threads are replaced by a list of tasks the test runs one at a time.
+ */
+class IngestJobSchedulerTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+    private final IngestStreamRegistry streamRegistry = mock(IngestStreamRegistry.class);
+    private final List<Runnable> workerTasks = new ArrayList<>();
+    private final List<Long> ran = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Job job = new Job() {
+        @Override
+        public String getName() {
+            return "resultUploadJob";
+        }
+
+        @Override
+        public void execute(JobExecution execution) {
+            ran.add(execution.getId());
+        }
+    };
+
+    IngestJobSchedulerTest() throws Exception {
+        when(jobRepository.createJobExecution(anyString(), any())).thenAnswer(invocation -> {
+            long id = ids.incrementAndGet();
+            return new JobExecution(new JobInstance(id, invocation.getArgument(0)), id, invocation.getArgument(1));
+        });
+        when(streamRegistry.isOpen("live")).thenReturn(true);
+    }
+
+    @Test
+    void runsOneJobOfAnEventAtATime() throws Exception {
+        IngestJobScheduler scheduler = scheduler(2, 10);
+
+        long first = launch(scheduler, 1L);
+        long second = launch(scheduler, 1L);
+
+        assertThat(workerTasks).hasSize(1);
+        assertThat(scheduler.queueStatus(second)).get().extracting(IngestJobScheduler.QueueStatus::position).isEqualTo(1);
+        runNextTask();
+        assertThat(scheduler.queueStatus(second)).isEmpty();
+        runNextTask();
+        assertThat(ran).containsExactly(first, second);
+        assertThat(scheduler.hasJobFor(1L)).isFalse();
+    }
+
+    @Test
+    void takesEventsInTurn() throws Exception {
+        IngestJobScheduler scheduler = scheduler(1, 10);
+
+        long a1 = launch(scheduler, 1L);
+        long a2 = launch(scheduler, 1L);
+        long a3 = launch(scheduler, 1L);
+        long b1 = launch(scheduler, 2L);
+
+        assertThat(List.of(a2, b1, a3)).map(id -> scheduler.queueStatus(id).orElseThrow().position())
+                .containsExactly(1, 2, 3);
+        while (!workerTasks.isEmpty()) {
+            runNextTask();
+        }
+        assertThat(ran).containsExactly(a1, a2, b1, a3);
+    }
+
+    @Test
+    void refusesLaunchesOnceTheQueueIsFull() throws Exception {
+        IngestJobScheduler scheduler = scheduler(1, 2);
+
+        launch(scheduler, 1L); // starts at once
+        launch(scheduler, 2L);
+        launch(scheduler, 3L);
+
+        assertThatThrownBy(() -> launch(scheduler, 4L)).isInstanceOf(IngestQueueFullException.class);
+        assertThat(scheduler.hasJobFor(4L)).isFalse();
+        runNextTask();
+        launch(scheduler, 4L);
+        assertThat(scheduler.hasJobFor(4L)).isTrue();
+    }
+
+    @Test
+    void startsALiveStreamOnlyOnAFreeWorker() throws Exception {
+        IngestJobScheduler scheduler = scheduler(1, 10);
+
+        long live = launchStream(scheduler, 1L);
+        assertThat(workerTasks).hasSize(1);
+        assertThat(scheduler.queueStatus(live)).isEmpty();
+
+        assertThatThrownBy(() -> launchStream(scheduler, 2L)).isInstanceOf(IngestQueueFullException.class);
+        long queued = launch(scheduler, 2L);
+        runNextTask();
+        runNextTask();
+        assertThat(ran).containsExactly(live, queued);
+    }
+
+    @Test
+    void refusesALiveStreamWhileItsEventHasAJob() throws Exception {
+        IngestJobScheduler scheduler = scheduler(2, 10);
+
+        launch(scheduler, 1L);
+
+        assertThatThrownBy(() -> launchStream(scheduler, 1L)).isInstanceOf(IngestQueueFullException.class);
+    }
+
+    @Test
+    void givesBackTheReservationOfAFailedLaunch() throws Exception {
+        IngestJobScheduler scheduler = scheduler(1, 1);
+        doThrow(new JobExecutionAlreadyRunningException("already running"))
+                .when(jobRepository).createJobExecution(anyString(), any());
+
+        assertThatThrownBy(() -> launch(scheduler, 1L)).isInstanceOf(JobExecutionAlreadyRunningException.class);
+        assertThatThrownBy(() -> launchStream(scheduler, 2L)).isInstanceOf(JobExecutionAlreadyRunningException.class);
+
+        assertThat(scheduler.hasJobFor(1L)).isFalse();
+        assertThat(scheduler.hasJobFor(2L)).isFalse();
+        assertThat(workerTasks).isEmpty();
+    }
+
+    private IngestJobScheduler scheduler(int workerCount, int queueCapacity) throws Exception {
+        return new IngestJobScheduler(jobRepository, streamRegistry, workerTasks::add, workerCount, queueCapacity);
+    }
+
+    private long launch(IngestJobScheduler scheduler, Long eventId) throws Exception {
+        return scheduler.run(job, parameters(eventId).toJobParameters()).getId();
+    }
+
+    private long launchStream(IngestJobScheduler scheduler, Long eventId) throws Exception {
+        JobParameters parameters = parameters(eventId).addString("streamId", "live").toJobParameters();
+        return scheduler.run(job, parameters).getId();
+    }
+
+    private JobParametersBuilder parameters(Long eventId) {
+        return new JobParametersBuilder().addLong("eventId", eventId);
+    }
+
+    private void runNextTask() {
+        workerTasks.remove(0).run();
+    }
+}
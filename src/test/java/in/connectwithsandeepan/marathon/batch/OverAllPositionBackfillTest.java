@@ -0,0 +1,89 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OverAllPositionBackfillTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fillsInThePositionOfRanksThatAreWholeNumbers() {
+        storedRanks(Map.of(1L, " 12", 2L, "DNF", 3L, "0", 4L, "3"));
+
+        new OverAllPositionBackfill(jdbcTemplate).run(null);
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(OverAllPositionBackfill.UPDATE_POSITION), updates.capture());
+        assertThat(updates.getValue()).containsExactly(new Object[]{12, 1L, " 12"}, new Object[]{3, 4L, "3"});
+    }
+
+    @Test
+    void walksTheResultsInBatchesById() {
+        Map<Long, String> ranks = new TreeMap<>();
+        for (long id = 1; id <= OverAllPositionBackfill.BATCH_SIZE + 1; id++) {
+            ranks.put(id, String.valueOf(id));
+        }
+        storedRanks(ranks);
+
+        new OverAllPositionBackfill(jdbcTemplate).run(null);
+
+        verify(jdbcTemplate).query(eq(OverAllPositionBackfill.SELECT_UNPOSITIONED), any(RowMapper.class), eq(0L));
+        verify(jdbcTemplate).query(eq(OverAllPositionBackfill.SELECT_UNPOSITIONED), any(RowMapper.class),
+                eq((long) OverAllPositionBackfill.BATCH_SIZE));
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(OverAllPositionBackfill.UPDATE_POSITION), anyList());
+    }
+
+    @Test
+    void writesNothingWhenNoRankIsAPosition() {
+        storedRanks(Map.of(1L, "DNF", 2L, ""));
+
+        new OverAllPositionBackfill(jdbcTemplate).run(null);
+
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+    }
+
+    /**
+     * Answers the backfill's query like the database: ranks after the given id, in id order,
+     * at most {@link OverAllPositionBackfill#BATCH_SIZE} of them.
+     */
+    @SuppressWarnings("unchecked")
+    private void storedRanks(Map<Long, String> ranksById) {
+        Map<Long, String> sorted = new TreeMap<>(ranksById);
+        when(jdbcTemplate.query(eq(OverAllPositionBackfill.SELECT_UNPOSITIONED), any(RowMapper.class), anyLong()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    long afterId = invocation.getArgument(2);
+                    List<Object> rows = new ArrayList<>();
+                    for (Map.Entry<Long, String> stored : sorted.entrySet()) {
+                        if (stored.getKey() > afterId && rows.size() < OverAllPositionBackfill.BATCH_SIZE) {
+                            ResultSet rs = mock(ResultSet.class);
+                            when(rs.getLong(1)).thenReturn(stored.getKey());
+                            when(rs.getString(2)).thenReturn(stored.getValue());
+                            rows.add(mapper.mapRow(rs, rows.size()));
+                        }
+                    }
+                    return rows;
+                });
+    }
+}
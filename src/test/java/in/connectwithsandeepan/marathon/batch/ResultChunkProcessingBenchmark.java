@@ -0,0 +1,120 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import in.connectwithsandeepan.marathon.entity.Event;
+import in.connectwithsandeepan.marathon.entity.EventCategory;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ResultItemProcessor} on one chunk of valid rows: prepared as a chunk
+ * (as the simple and partitioned steps do), row by row (as the pipelined step does),
+ * and, for comparison, the bean validation alone that every row went through before the
+ * field checks of {@link ResultRowValidator}. Scores are per row; the registries'
+ * queries are stubbed, so no database is involved.
+ * <p>
+ * {@code mvn test-compile} then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> in.connectwithsandeepan.marathon.batch.ResultChunkProcessingBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(ResultChunkProcessingBenchmark.ROWS)
+public class ResultChunkProcessingBenchmark {
+
+    static final int ROWS = 1000;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ResultRowValidator rowValidator = new ResultRowValidator(validator);
+    private Chunk<ResultRequestDTO> chunk;
+    private EventSnapshotRegistry eventSnapshotRegistry;
+    private ResultItemProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ResultRequestDTO> rows = new ArrayList<>(ROWS);
+        for (int r = 1; r <= ROWS; r++) {
+            List<CheckpointRequestDTO> checkpoints = List.of(
+                    new CheckpointRequestDTO(1, LocalTime.ofSecondOfDay(1500 + r)),
+                    new CheckpointRequestDTO(2, LocalTime.ofSecondOfDay(3100 + r)));
+            rows.add(new ResultRequestDTO("B" + r, "Runner " + r, r % 2 == 0 ? "M" : "F", "21K", "18-35",
+                    String.valueOf(r), String.valueOf(r / 2 + 1), String.valueOf(r / 4 + 1),
+                    LocalTime.ofSecondOfDay(4500 + r), LocalTime.ofSecondOfDay(4530 + r), checkpoints, r + 1));
+        }
+        chunk = new Chunk<>(rows);
+
+        Event event = new Event();
+        event.setId(1L);
+        event.setEventName("Benchmark Marathon");
+        EventCategory category = new EventCategory();
+        category.setId(1L);
+        category.setCategoryName("21K");
+        EventSnapshot snapshot = EventSnapshot.of(event, List.of(category));
+        eventSnapshotRegistry = new EventSnapshotRegistry(null) {
+            @Override
+            public EventSnapshot load(Long eventId) {
+                return snapshot;
+            }
+        };
+    }
+
+    /**
+     * A fresh processor, and with it an empty bib index, for every chunk.
+     */
+    @Setup(Level.Invocation)
+    public void newProcessor() {
+        BibIndexRegistry bibIndexRegistry = new BibIndexRegistry(new JdbcTemplate() {
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                return List.of();
+            }
+        });
+        processor = new ResultItemProcessor(rowValidator, bibIndexRegistry, eventSnapshotRegistry, 1L, 1L, "REPLACE");
+    }
+
+    @Benchmark
+    public void preparedChunk(Blackhole blackhole) throws Exception {
+        processor.prepareChunk(chunk);
+        for (ResultRequestDTO dto : chunk) {
+            blackhole.consume(processor.process(dto));
+        }
+    }
+
+    @Benchmark
+    public void rowByRow(Blackhole blackhole) throws Exception {
+        for (ResultRequestDTO dto : chunk) {
+            blackhole.consume(processor.process(dto));
+        }
+    }
+
+    @Benchmark
+    public void beanValidationOnly(Blackhole blackhole) {
+        for (ResultRequestDTO dto : chunk) {
+            blackhole.consume(validator.validate(dto));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResultChunkProcessingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultRowCodecTest {
+
+    private static final String TEMPLATE_HEADER = "Bib Number,Participant Name,Gender,Race Category,Age Category,"
+            + "Overall Rank,Gender Rank,Age Category Rank,Chip Time,Gun Time";
+
+    @Test
+    void parsesHoursMinutesAndSeconds() {
+        assertThat(ResultRowCodec.parseTime("1:02:03")).isEqualTo(LocalTime.of(1, 2, 3));
+        assertThat(ResultRowCodec.parseTime("01:02:03")).isEqualTo(LocalTime.of(1, 2, 3));
+        assertThat(ResultRowCodec.parseTime(" 23:59:59 ")).isEqualTo(LocalTime.of(23, 59, 59));
+    }
+
+    @Test
+    void parsesMinutesAndSecondsWithTwoDigitMinutes() {
+        assertThat(ResultRowCodec.parseTime("59:59")).isEqualTo(LocalTime.of(0, 59, 59));
+        assertThat(ResultRowCodec.parseTime("05:30")).isEqualTo(LocalTime.of(0, 5, 30));
+        assertThat(ResultRowCodec.parseTime("5:30")).isNull();
+    }
+
+    @Test
+    void acceptsTwentyFourHoursAsMidnight() {
+        assertThat(ResultRowCodec.parseTime("24:00:00")).isEqualTo(LocalTime.MIDNIGHT);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"DNF", "1", "1:2:3", "123:00", "1:02:03:04", "1:02:", "1:02:3x", "24:00:01",
+            "25:00:00", "1:60:00", "1:00:60", "1.02.03"})
+    void rejectsOtherValues(String value) {
+        assertThat(ResultRowCodec.parseTime(value)).isNull();
+    }
+
+    @Test
+    void bindsColumnsByHeaderInAnyOrder() throws IOException {
+        ResultRequestDTO dto = decodeFirstRow("""
+                Name,Sex,BIB NO,chip_time,Net Time,Rank
+                Jane Doe,F,101,1:00:00,1:00:05,7
+                """);
+
+        assertThat(dto.getBibNumber()).isEqualTo("101");
+        assertThat(dto.getParticipantName()).isEqualTo("Jane Doe");
+        assertThat(dto.getGender()).isEqualTo("F");
+        assertThat(dto.getOverAllRank()).isEqualTo("7");
+        // the first chip time column wins
+        assertThat(dto.getChipTime()).isEqualTo(LocalTime.of(1, 0, 0));
+        assertThat(dto.getGunTime()).isNull();
+        assertThat(dto.getRaceCategory()).isNull();
+        assertThat(dto.getRowNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void takesCheckpointAndCpHeadersAsCheckpointsInColumnOrder() throws IOException {
+        ResultRequestDTO dto = decodeFirstRow("""
+                Checkpoint 1,Bib,Name,CP-2,Chip Time,Club,Checkpoint 3
+                0:20:00,101,Jane,0:40:00,1:00:00,0:50:00,
+                """);
+
+        assertThat(dto.getCheckpointTimes()).containsExactly(
+                new CheckpointRequestDTO(1, LocalTime.of(0, 20)),
+                new CheckpointRequestDTO(2, LocalTime.of(0, 40)));
+    }
+
+    @Test
+    void takesOtherHeadersPastTheTemplateFieldsAsCheckpoints() throws IOException {
+        ResultRequestDTO dto = decodeFirstRow(TEMPLATE_HEADER + ",10K,Split 2\n"
+                + "101,Jane,F,21K,18-35,1,1,1,1:30:00,1:31:00,0:45:00,1:10:00\n");
+
+        assertThat(dto.getCheckpointTimes()).containsExactly(
+                new CheckpointRequestDTO(1, LocalTime.of(0, 45)),
+                new CheckpointRequestDTO(2, LocalTime.of(1, 10)));
+    }
+
+    @Test
+    void fallsBackToTheTemplateLayoutWithoutBibNameAndChipTimeHeaders() throws IOException {
+        ResultRequestDTO dto = decodeFirstRow("""
+                Bib,Name,Gender
+                101,Jane,F,21K,18-35,1,1,1,1:30:00,1:31:00,0:45:00
+                """);
+
+        assertThat(dto.getBibNumber()).isEqualTo("101");
+        assertThat(dto.getRaceCategory()).isEqualTo("21K");
+        assertThat(dto.getChipTime()).isEqualTo(LocalTime.of(1, 30));
+        assertThat(dto.getGunTime()).isEqualTo(LocalTime.of(1, 31));
+        assertThat(dto.getCheckpointTimes()).containsExactly(new CheckpointRequestDTO(1, LocalTime.of(0, 45)));
+    }
+
+    private static ResultRequestDTO decodeFirstRow(String csv) throws IOException {
+        try (SheetRowSource source = new InputStreamCsvRowSource(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            assertThat(source.next()).isTrue();
+            ResultRowCodec codec = ResultRowCodec.fromHeader(source);
+            assertThat(source.next()).isTrue();
+            return codec.decode(source);
+        }
+    }
+}
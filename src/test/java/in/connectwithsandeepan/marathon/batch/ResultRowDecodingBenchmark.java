@@ -0,0 +1,204 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.CheckpointRequestDTO;
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ResultRowCodec} with the row mapping {@link ResultItemReader} used
+ * before it (regex checks and a new {@code DateTimeFormatter} per time cell). Rows come
+ * from memory so only decoding is measured. Scores are per row; run {@link #main} to
+ * include the GC profiler, whose {@code gc.alloc.rate.norm} is bytes allocated per row.
+ * <p>
+ * {@code mvn test-compile} then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> in.connectwithsandeepan.marathon.batch.ResultRowDecodingBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(ResultRowDecodingBenchmark.ROWS)
+public class ResultRowDecodingBenchmark {
+
+    static final int ROWS = 1024;
+    private static final int CHECKPOINTS = 6;
+
+    private ArrayRowSource rows;
+    private ResultRowCodec codec;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[][] data = new String[ROWS + 1][];
+        String[] header = new String[ResultRowCodec.CHECKPOINT_START_COL + CHECKPOINTS];
+        String[] names = {"Bib Number", "Participant Name", "Gender", "Race Category", "Age Category",
+                "Overall Rank", "Gender Rank", "Age Category Rank", "Chip Time", "Gun Time"};
+        System.arraycopy(names, 0, header, 0, names.length);
+        for (int c = 0; c < CHECKPOINTS; c++) {
+            header[ResultRowCodec.CHECKPOINT_START_COL + c] = "Checkpoint " + (c + 1);
+        }
+        data[0] = header;
+
+        for (int r = 1; r <= ROWS; r++) {
+            String[] row = new String[header.length];
+            row[0] = String.valueOf(1000 + r);
+            row[1] = "Runner " + r;
+            row[2] = random.nextBoolean() ? "MALE" : "FEMALE";
+            row[3] = "21K";
+            row[4] = "SENIOR";
+            row[5] = String.valueOf(r);
+            row[6] = String.valueOf(r / 2 + 1);
+            row[7] = String.valueOf(r / 4 + 1);
+            int seconds = 3600 + random.nextInt(7200);
+            row[8] = time(seconds);
+            row[9] = time(seconds + random.nextInt(120));
+            for (int c = 0; c < CHECKPOINTS; c++) {
+                row[ResultRowCodec.CHECKPOINT_START_COL + c] = time(seconds * (c + 1) / (CHECKPOINTS + 1));
+            }
+            data[r] = row;
+        }
+        rows = new ArrayRowSource(data);
+        rows.position(0);
+        codec = ResultRowCodec.fromHeader(rows);
+    }
+
+    @Benchmark
+    public void codec(Blackhole blackhole) {
+        for (int r = 1; r <= ROWS; r++) {
+            rows.position(r);
+            blackhole.consume(codec.decode(rows));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (int r = 1; r <= ROWS; r++) {
+            rows.position(r);
+            blackhole.consume(LegacyRowMapper.map(rows));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResultRowDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    private static String time(int seconds) {
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    /**
+     * Rows held in memory; {@link #position(int)} selects the current row.
+     */
+    static class ArrayRowSource implements SheetRowSource {
+
+        private final String[][] data;
+        private int current = -1;
+
+        ArrayRowSource(String[][] data) {
+            this.data = data;
+        }
+
+        void position(int row) {
+            current = row;
+        }
+
+        @Override
+        public boolean next() {
+            return ++current < data.length;
+        }
+
+        @Override
+        public int getRowNumber() {
+            return current;
+        }
+
+        @Override
+        public int getCellCount() {
+            return data[current].length;
+        }
+
+        @Override
+        public String getCell(int column) {
+            return column < data[current].length ? data[current][column] : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * The mapping from {@link ResultItemReader} before {@link ResultRowCodec} was introduced.
+     */
+    static class LegacyRowMapper {
+
+        static ResultRequestDTO map(SheetRowSource row) {
+            ResultRequestDTO dto = new ResultRequestDTO();
+            dto.setBibNumber(row.getCell(0));
+            dto.setParticipantName(row.getCell(1));
+            dto.setGender(row.getCell(2));
+            dto.setRaceCategory(row.getCell(3));
+            dto.setAgeCategory(row.getCell(4));
+            dto.setOverAllRank(row.getCell(5));
+            dto.setGenderRank(row.getCell(6));
+            dto.setAgeCategoryRank(row.getCell(7));
+            dto.setChipTime(parseTime(row.getCell(8)));
+            dto.setGunTime(parseTime(row.getCell(9)));
+            dto.setCheckpointTimes(mapCheckpoints(row));
+            dto.setRowNumber(row.getRowNumber() + 1);
+            return dto;
+        }
+
+        private static LocalTime parseTime(String timeStr) {
+            if (timeStr == null || timeStr.trim().isEmpty()) {
+                return null;
+            }
+            try {
+                timeStr = timeStr.trim();
+                if (timeStr.matches("\\d{1,2}:\\d{2}:\\d{2}")) {
+                    return LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("H:mm:ss"));
+                }
+                if (timeStr.matches("\\d{1,2}:\\d{2}")) {
+                    return LocalTime.parse("0:" + timeStr, DateTimeFormatter.ofPattern("H:mm:ss"));
+                }
+            } catch (Exception e) {
+                return null;
+            }
+            return null;
+        }
+
+        private static List<CheckpointRequestDTO> mapCheckpoints(SheetRowSource row) {
+            List<CheckpointRequestDTO> checkpoints = new ArrayList<>();
+            for (int i = 10; i < row.getCellCount(); i++) {
+                String timeValue = row.getCell(i);
+                if (timeValue != null && !timeValue.trim().isEmpty()) {
+                    LocalTime checkpointTime = parseTime(timeValue);
+                    if (checkpointTime != null) {
+                        CheckpointRequestDTO checkpoint = new CheckpointRequestDTO();
+                        checkpoint.setCheckpointNumber(i - 10 + 1);
+                        checkpoint.setTime(checkpointTime);
+                        checkpoints.add(checkpoint);
+                    }
+                }
+            }
+            return checkpoints;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import in.connectwithsandeepan.marathon.dto.ResultRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every partition is read by its own {@link ResultItemReader}; together they must return
+ * the rows, and row numbers, of one reader over the whole file.
+ */
+class ResultRowRangePartitionerTest {
+
+    @TempDir
+    Path dir;
+
+    private final SheetRowSourceFactory rowSourceFactory =
+            new SheetRowSourceFactory(true, DataSize.ofMegabytes(50), DataSize.ofMegabytes(10));
+
+    @Test
+    void partitionsReadTheRowsOfTheWholeFileOnce() throws Exception {
+        StringBuilder csv = new StringBuilder("\uFEFFBib Number,Participant Name,Chip Time\r\n");
+        for (int i = 0; i < 103; i++) {
+            csv.append(100 + i).append(',');
+            // quoted line breaks and blank lines move row numbers away from row indexes
+            csv.append(i % 7 == 0 ? "\"Runner\n" + i + "\"" : "Runner " + i).append(",1:00:00\r\n");
+            if (i % 11 == 0) {
+                csv.append("\r\n");
+            }
+        }
+        Path file = Files.writeString(dir.resolve("event_1_results.csv"), csv);
+
+        Map<String, ExecutionContext> partitions = new ResultRowRangePartitioner(file.toString()).partition(4);
+
+        assertThat(partitions).hasSize(4);
+        List<String> partitioned = new ArrayList<>();
+        for (ExecutionContext partition : partitions.values()) {
+            assertThat(partition.containsKey(ResultRowRangePartitioner.FROM_OFFSET)).isTrue();
+            partitioned.addAll(read(file, partition));
+        }
+        assertThat(partitioned).hasSize(103).isEqualTo(read(file, null));
+    }
+
+    @Test
+    void usesNoMorePartitionsThanRows() throws Exception {
+        Path file = Files.writeString(dir.resolve("event_1_results.csv"), """
+                Bib Number,Participant Name,Chip Time
+                101,Jane Doe,1:00:00
+                102,John Doe,1:05:00
+                """);
+
+        Map<String, ExecutionContext> partitions = new ResultRowRangePartitioner(file.toString()).partition(4);
+
+        assertThat(partitions).hasSize(2);
+        assertThat(read(file, partitions.get("partition1"))).containsExactly("102 John Doe @3");
+    }
+
+    @Test
+    void handsAFileWithOnlyAHeaderToOnePartition() throws Exception {
+        Path file = Files.writeString(dir.resolve("event_1_results.csv"), "Bib Number,Participant Name,Chip Time\n");
+
+        Map<String, ExecutionContext> partitions = new ResultRowRangePartitioner(file.toString()).partition(4);
+
+        assertThat(partitions).hasSize(1);
+        assertThat(read(file, partitions.get("partition0"))).isEmpty();
+    }
+
+    @Test
+    void onlySplitsPlainCsvFiles() {
+        assertThat(ResultRowRangePartitioner.canSplit("/uploads/event_1_results.CSV")).isTrue();
+        assertThat(ResultRowRangePartitioner.canSplit("/uploads/event_1_results.csv.gz")).isFalse();
+        assertThat(ResultRowRangePartitioner.canSplit("/uploads/event_1_results.xlsx")).isFalse();
+        assertThat(ResultRowRangePartitioner.canSplit("/uploads/event_1_results.zip")).isFalse();
+
+        Map<String, ExecutionContext> partitions = new ResultRowRangePartitioner("/uploads/event_1_results.xlsx").partition(4);
+
+        assertThat(partitions).hasSize(1);
+        assertThat(partitions.get("partition0").containsKey(ResultRowRangePartitioner.TO_ROW)).isFalse();
+    }
+
+    private List<String> read(Path file, ExecutionContext partition) throws Exception {
+        ResultItemReader reader = partition == null
+                ? new ResultItemReader(file.toString(), 1L, null, null, null, null, null, rowSourceFactory, null)
+                : new ResultItemReader(file.toString(), 1L,
+                partition.getInt(ResultRowRangePartitioner.FROM_ROW),
+                partition.getInt(ResultRowRangePartitioner.TO_ROW),
+                partition.getLong(ResultRowRangePartitioner.FROM_OFFSET),
+                partition.getInt(ResultRowRangePartitioner.FROM_LINE),
+                null, rowSourceFactory, null);
+        List<String> rows = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        try {
+            for (ResultRequestDTO dto = reader.read(); dto != null; dto = reader.read()) {
+                rows.add(dto.getBibNumber() + " " + dto.getParticipantName() + " @" + dto.getRowNumber());
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,177 @@
+package in.connectwithsandeepan.marathon.batch;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming sheet readers ({@link XlsxStreamingRowSource},
+ * {@link XlsStreamingRowSource}) with {@link WorkbookRowSource}, the {@code WorkbookFactory}
+ * path every upload went through before them, on a generated sheet of {@code rows} data
+ * rows and 14 columns. Scores are milliseconds to read every cell of the sheet; the GC
+ * profiler's {@code gc.alloc.rate.norm} is bytes allocated per sheet. {@link #main} then
+ * prints the heap each reader retains while the sheet is open, which is what limits the
+ * size of an upload.
+ * <p>
+ * {@code mvn test-compile} then
+ * {@code java -cp target/test-classes:target/classes:<test classpath> in.connectwithsandeepan.marathon.batch.SheetRowSourceBenchmark [rows]}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SheetRowSourceBenchmark {
+
+    private static final int CHECKPOINTS = 4;
+
+    @Param({"xlsx", "xls"})
+    public String format;
+
+    // an .xls sheet holds at most 65,536 rows
+    @Param("20000")
+    public int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = writeSheet(format, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int streaming(Blackhole blackhole) throws IOException {
+        try (SheetRowSource source = streamingSource(format, file)) {
+            return readAll(source, blackhole);
+        }
+    }
+
+    @Benchmark
+    public int workbook(Blackhole blackhole) throws IOException {
+        try (SheetRowSource source = new WorkbookRowSource(file)) {
+            return readAll(source, blackhole);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String rows = args.length > 0 ? args[0] : "20000";
+        new Runner(new OptionsBuilder()
+                .include(SheetRowSourceBenchmark.class.getSimpleName())
+                .param("rows", rows)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        for (String format : new String[]{"xlsx", "xls"}) {
+            Path file = writeSheet(format, Integer.parseInt(rows));
+            try {
+                long before = usedHeapAfterGc();
+                try (SheetRowSource source = streamingSource(format, file)) {
+                    System.out.printf("%-5s streaming: %,d bytes retained%n", format,
+                            usedHeapHalfwayThrough(source, Integer.parseInt(rows)) - before);
+                }
+                before = usedHeapAfterGc();
+                try (SheetRowSource source = new WorkbookRowSource(file)) {
+                    System.out.printf("%-5s workbook:  %,d bytes retained%n", format,
+                            usedHeapHalfwayThrough(source, Integer.parseInt(rows)) - before);
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static SheetRowSource streamingSource(String format, Path file) throws IOException {
+        return "xls".equals(format) ? new XlsStreamingRowSource(file) : new XlsxStreamingRowSource(file);
+    }
+
+    private static int readAll(SheetRowSource source, Blackhole blackhole) throws IOException {
+        int count = 0;
+        while (source.next()) {
+            for (int c = 0; c < source.getCellCount(); c++) {
+                blackhole.consume(source.getCell(c));
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Heap in use, after a full collection, once the source has read half of its rows.
+     */
+    private static long usedHeapHalfwayThrough(SheetRowSource source, int rows) throws IOException {
+        for (int r = 0; r <= rows / 2 && source.next(); r++) {
+            source.getCell(0);
+        }
+        return usedHeapAfterGc();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Path writeSheet(String format, int rows) throws IOException {
+        Path file = Files.createTempFile("sheet-benchmark-", "." + format);
+        Random random = new Random(42);
+        try (Workbook workbook = "xls".equals(format) ? new HSSFWorkbook() : new SXSSFWorkbook(100);
+             OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Results");
+            String[] header = {"Bib Number", "Participant Name", "Gender", "Race Category", "Age Category",
+                    "Overall Rank", "Gender Rank", "Age Category Rank", "Chip Time", "Gun Time"};
+            Row headerRow = sheet.createRow(0);
+            for (int c = 0; c < header.length + CHECKPOINTS; c++) {
+                headerRow.createCell(c).setCellValue(c < header.length ? header[c] : "Checkpoint " + (c - header.length + 1));
+            }
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                int seconds = 3600 + random.nextInt(7200);
+                row.createCell(0).setCellValue(1000 + r);
+                row.createCell(1).setCellValue("Runner " + r);
+                row.createCell(2).setCellValue(random.nextBoolean() ? "MALE" : "FEMALE");
+                row.createCell(3).setCellValue("21K");
+                row.createCell(4).setCellValue("SENIOR");
+                row.createCell(5).setCellValue(r);
+                row.createCell(6).setCellValue(r / 2 + 1);
+                row.createCell(7).setCellValue(r / 4 + 1);
+                row.createCell(8).setCellValue(time(seconds));
+                row.createCell(9).setCellValue(time(seconds + random.nextInt(120)));
+                for (int c = 0; c < CHECKPOINTS; c++) {
+                    row.createCell(header.length + c).setCellValue(time(seconds * (c + 1) / (CHECKPOINTS + 1)));
+                }
+            }
+            workbook.write(out);
+            if (workbook instanceof SXSSFWorkbook streaming) {
+                streaming.dispose();
+            }
+        }
+        return file;
+    }
+
+    private static String time(int seconds) {
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
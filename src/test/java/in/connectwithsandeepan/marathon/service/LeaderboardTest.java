@@ -0,0 +1,138 @@
+package in.connectwithsandeepan.marathon.service;
+
+import in.connectwithsandeepan.marathon.dto.LeaderboardDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardEntryDto;
+import in.connectwithsandeepan.marathon.dto.LeaderboardStandingDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardTest {
+
+    // in chip time order, ties by id, as the leaderboard is read
+    private static final List<LeaderboardRow> ROWS = List.of(
+            row(7, "G", "F", "18-35", "10K", "0:40:00"),
+            row(1, "A", "F", "18-35", "21K", "1:00:00"),
+            row(2, "B", "M", "18-35", "21K", "1:00:00"),
+            row(3, "C", "F", "36-50", "21K", "1:05:00"),
+            row(4, "D", "M", "18-35", "21K", "1:10:00"),
+            row(5, "E", "F", "18-35", "21K", "1:10:00"),
+            row(6, "F", "M", null, "21K", "1:20:00"));
+
+    private final Leaderboard leaderboard = Leaderboard.of(ROWS, List.of("5K", "10K", "21K"));
+
+    @Test
+    void ranksTiesTogetherAndSkipsTheRanksTheyTake() {
+        LeaderboardDto top = leaderboard.top("21K", null, null, 10);
+
+        assertThat(top.fieldSize()).isEqualTo(6);
+        assertThat(top.entries()).extracting(LeaderboardEntryDto::bibNumber).containsExactly("A", "B", "C", "D", "E", "F");
+        assertThat(top.entries()).extracting(LeaderboardEntryDto::rank).containsExactly(1, 1, 3, 4, 4, 6);
+        assertThat(top.entries().get(3).chipTime()).isEqualTo(LocalTime.of(1, 10));
+    }
+
+    @Test
+    void cutsTheTopAtTheLimitEvenWithinATie() {
+        LeaderboardDto top = leaderboard.top("21K", null, null, 4);
+
+        assertThat(top.fieldSize()).isEqualTo(6);
+        assertThat(top.entries()).extracting(LeaderboardEntryDto::bibNumber).containsExactly("A", "B", "C", "D");
+        assertThat(top.entries()).extracting(LeaderboardEntryDto::rank).containsExactly(1, 1, 3, 4);
+    }
+
+    @Test
+    void ranksWithinANarrowerField() {
+        assertThat(leaderboard.top("21K", "F", null, 10).entries())
+                .extracting(LeaderboardEntryDto::bibNumber, LeaderboardEntryDto::rank)
+                .containsExactly(tuple("A", 1), tuple("C", 2), tuple("E", 3));
+        assertThat(leaderboard.top("21K", null, "18-35", 10).entries())
+                .extracting(LeaderboardEntryDto::bibNumber, LeaderboardEntryDto::rank)
+                .containsExactly(tuple("A", 1), tuple("B", 1), tuple("D", 3), tuple("E", 3));
+        assertThat(leaderboard.top("21K", "M", "18-35", 10).entries())
+                .extracting(LeaderboardEntryDto::bibNumber).containsExactly("B", "D");
+    }
+
+    @Test
+    void knowsCategoriesWithoutResults() {
+        assertThat(leaderboard.hasCategory("5K")).isTrue();
+        assertThat(leaderboard.hasCategory("42K")).isFalse();
+        assertThat(leaderboard.top("5K", null, null, 10).fieldSize()).isZero();
+        assertThat(leaderboard.top("5K", null, null, 10).entries()).isEmpty();
+        assertThat(leaderboard.size()).isEqualTo(7);
+    }
+
+    @Test
+    void ranksARunnerTiedWithTheOneAhead() {
+        LeaderboardStandingDto standing = leaderboard.standingOf("E", LeaderboardScope.CATEGORY, 1);
+
+        assertThat(standing.fieldSize()).isEqualTo(6);
+        assertThat(standing.runner().rank()).isEqualTo(4);
+        // only F is slower; D, with the same chip time, is not
+        assertThat(standing.percentile()).isEqualTo(16.7);
+        assertThat(standing.neighbours())
+                .extracting(LeaderboardEntryDto::bibNumber, LeaderboardEntryDto::rank)
+                .containsExactly(tuple("D", 4), tuple("E", 4), tuple("F", 6));
+    }
+
+    @Test
+    void ranksTheFirstNeighbourByItsOwnTie() {
+        LeaderboardStandingDto standing = leaderboard.standingOf("B", LeaderboardScope.CATEGORY, 0);
+
+        assertThat(standing.runner().rank()).isEqualTo(1);
+        assertThat(standing.percentile()).isEqualTo(66.7);
+        assertThat(standing.neighbours()).extracting(LeaderboardEntryDto::bibNumber, LeaderboardEntryDto::rank)
+                .containsExactly(tuple("B", 1));
+    }
+
+    @Test
+    void clipsTheNeighbourWindowAtTheEndsOfTheField() {
+        LeaderboardStandingDto first = leaderboard.standingOf("A", LeaderboardScope.GENDER, 5);
+        LeaderboardStandingDto last = leaderboard.standingOf("F", LeaderboardScope.CATEGORY, 2);
+
+        assertThat(first.gender()).isEqualTo("F");
+        assertThat(first.fieldSize()).isEqualTo(3);
+        assertThat(first.percentile()).isEqualTo(66.7);
+        assertThat(first.neighbours()).extracting(LeaderboardEntryDto::bibNumber).containsExactly("A", "C", "E");
+        assertThat(last.runner().rank()).isEqualTo(6);
+        assertThat(last.percentile()).isZero();
+        assertThat(last.neighbours()).extracting(LeaderboardEntryDto::bibNumber).containsExactly("D", "E", "F");
+    }
+
+    @Test
+    void ranksARunnerWithoutAnAgeCategoryInTheWholeCategory() {
+        LeaderboardStandingDto standing = leaderboard.standingOf("F", LeaderboardScope.AGE_CATEGORY, 0);
+
+        assertThat(standing.ageCategory()).isNull();
+        assertThat(standing.fieldSize()).isEqualTo(6);
+        assertThat(standing.runner().rank()).isEqualTo(6);
+    }
+
+    @Test
+    void ranksARunnerAloneInTheirFieldAtTheTop() {
+        LeaderboardStandingDto standing = leaderboard.standingOf("G", LeaderboardScope.AGE_CATEGORY, 3);
+
+        assertThat(standing.category()).isEqualTo("10K");
+        assertThat(standing.fieldSize()).isEqualTo(1);
+        assertThat(standing.runner().rank()).isEqualTo(1);
+        assertThat(standing.percentile()).isZero();
+        assertThat(standing.neighbours()).extracting(LeaderboardEntryDto::bibNumber).containsExactly("G");
+    }
+
+    @Test
+    void hasNoStandingForAnUnknownBib() {
+        assertThat(leaderboard.standingOf("Z", LeaderboardScope.CATEGORY, 5)).isNull();
+    }
+
+    private static LeaderboardRow row(long id, String bib, String gender, String ageCategory, String category,
+                                      String chipTime) {
+        return new LeaderboardRow(id, bib, "Runner " + bib, gender, ageCategory, category,
+                LocalTime.parse(chipTime.length() == 7 ? "0" + chipTime : chipTime));
+    }
+
+    private static org.assertj.core.groups.Tuple tuple(Object... values) {
+        return org.assertj.core.groups.Tuple.tuple(values);
+    }
+}
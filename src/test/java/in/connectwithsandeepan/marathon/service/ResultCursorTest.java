@@ -0,0 +1,101 @@
+package in.connectwithsandeepan.marathon.service;
+
+import in.connectwithsandeepan.marathon.dto.ResultView;
+import in.connectwithsandeepan.marathon.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultCursorTest {
+
+    @Test
+    void roundTripsAChipTimeCursor() {
+        ResultCursor cursor = ResultCursor.after(view(42L, "7", LocalTime.of(1, 2, 3)), ResultSort.CHIP_TIME);
+
+        ResultCursor decoded = ResultCursor.decode(cursor.encode(), ResultSort.CHIP_TIME);
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.chipTime()).isEqualTo(LocalTime.of(1, 2, 3));
+        assertThat(decoded.id()).isEqualTo(42L);
+        assertThat(decoded.unranked()).isFalse();
+    }
+
+    @Test
+    void roundTripsARankCursor() {
+        ResultCursor cursor = ResultCursor.after(view(42L, " 12 ", LocalTime.of(1, 0)), ResultSort.RANK);
+
+        ResultCursor decoded = ResultCursor.decode(cursor.encode(), ResultSort.RANK);
+
+        assertThat(decoded).isEqualTo(new ResultCursor('R', 12, 42L));
+        assertThat(decoded.position()).isEqualTo(12);
+        assertThat(decoded.unranked()).isFalse();
+    }
+
+    @Test
+    void roundTripsAnUnrankedCursor() {
+        ResultCursor cursor = ResultCursor.after(view(42L, "DNF", LocalTime.of(1, 0)), ResultSort.RANK);
+
+        ResultCursor decoded = ResultCursor.decode(cursor.encode(), ResultSort.RANK);
+
+        assertThat(decoded).isEqualTo(new ResultCursor('U', 0, 42L));
+        assertThat(decoded.unranked()).isTrue();
+    }
+
+    @Test
+    void encodesAsUrlSafeTextWithoutPadding() {
+        String encoded = new ResultCursor('C', LocalTime.MAX.toNanoOfDay(), Long.MAX_VALUE).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void startsBeforeTheFirstResult() {
+        assertThat(ResultCursor.first(ResultSort.CHIP_TIME)).isEqualTo(new ResultCursor('C', 0, 0));
+        assertThat(ResultCursor.first(ResultSort.RANK)).isEqualTo(new ResultCursor('R', 0, 0));
+    }
+
+    @Test
+    void rejectsACursorOfTheOtherSortOrder() {
+        String chipTime = new ResultCursor('C', 5, 1).encode();
+        String rank = new ResultCursor('R', 5, 1).encode();
+        String unranked = new ResultCursor('U', 0, 1).encode();
+
+        assertThatThrownBy(() -> ResultCursor.decode(chipTime, ResultSort.RANK)).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> ResultCursor.decode(rank, ResultSort.CHIP_TIME)).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> ResultCursor.decode(unranked, ResultSort.CHIP_TIME)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "C", "C:1", "C:1:2:3", "CC:1:2", "C:-1:2", "C:x:2", "C:86400000000000:2", "X:1:2"})
+    void rejectsMalformedCursors(String value) {
+        String cursor = Base64.getUrlEncoder().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+
+        assertThatThrownBy(() -> ResultCursor.decode(cursor, ResultSort.CHIP_TIME))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Invalid cursor for results sorted by CHIP_TIME");
+    }
+
+    @Test
+    void rejectsARankBeyondAnyPosition() {
+        String cursor = new ResultCursor('R', Integer.MAX_VALUE + 1L, 1).encode();
+
+        assertThatThrownBy(() -> ResultCursor.decode(cursor, ResultSort.RANK)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsTextThatIsNotBase64() {
+        assertThatThrownBy(() -> ResultCursor.decode("!!garbage", ResultSort.RANK)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static ResultView view(Long id, String overAllRank, LocalTime chipTime) {
+        return new ResultView(id, "101", "Jane Doe", "F", "18-35", overAllRank, null, null, chipTime, chipTime,
+                1L, "21K", LocalTime.of(6, 0));
+    }
+}